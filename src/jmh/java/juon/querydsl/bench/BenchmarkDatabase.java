@@ -0,0 +1,93 @@
+package juon.querydsl.bench;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.QuerydslApplication;
+import juon.querydsl.bulk.BulkIngestService;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * jmh 프로파일(H2 in-memory)로 애플리케이션을 띄우고 teams 개 팀, members 명 회원을 넣어둔다.
+ * read() 한 번은 읽기 전용 트랜잭션 하나이고, 끝나면 영속성 컨텍스트를 비운다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    @Param({"100000"})
+    public int members;
+
+    @Param({"100"})
+    public int teams;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory factory;
+    EntityManager em;
+    TransactionTemplate readOnly;
+    TransactionTemplate readWrite;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SpringApplication.run(QuerydslApplication.class, "--spring.profiles.active=jmh");
+        factory = context.getBean(JPAQueryFactory.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T read(Function<JPAQueryFactory, T> work) {
+        return readOnly.execute(status -> {
+            T result = work.apply(factory);
+            em.clear();
+            return result;
+        });
+    }
+
+    /**
+     * 읽기/쓰기 트랜잭션. 커밋할 때 flush(dirty checking)까지 포함된다.
+     */
+    <T> T write(Function<JPAQueryFactory, T> work) {
+        return readWrite.execute(status -> work.apply(factory));
+    }
+
+    String username(int i) {
+        return "member" + i;
+    }
+
+    private void seed() {
+        BulkIngestService ingest = context.getBean(BulkIngestService.class);
+        List<Team> saved = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            saved.add(new Team("team" + i));
+        }
+        ingest.ingest(saved);
+
+        Random random = new Random(42);
+        ingest.ingest(IntStream.range(0, members)
+                .mapToObj(i -> new Member(username(i), 20 + random.nextInt(40), saved.get(i % teams))), 1000);
+    }
+}
@@ -0,0 +1,65 @@
+package juon.querydsl.bench;
+
+import com.querydsl.core.Tuple;
+import juon.querydsl.query.NumericAggregate;
+import juon.querydsl.query.PartitionedAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * member.age 전체 집계를 한 문장으로 실행할 때와 parallelism 개 파티션으로 나눠 실행할 때의 지연시간.
+ * 코어 수만큼 parallelism 을 늘렸을 때 partitioned 가 single 대비 얼마나 줄어드는지 본다.
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="PartitionedAggregationBenchmark -p members=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PartitionedAggregationBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    PartitionedAggregator aggregator;
+
+    @Setup(Level.Trial)
+    public void start(BenchmarkDatabase db) {
+        aggregator = new PartitionedAggregator(db.factory,
+                db.context.getBean(PlatformTransactionManager.class), parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        aggregator.close();
+    }
+
+    @Benchmark
+    public Tuple single(BenchmarkDatabase db) {
+        return db.read(factory -> factory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .fetchOne());
+    }
+
+    @Benchmark
+    public NumericAggregate partitioned() {
+        return aggregator.aggregate(member.id, member.age);
+    }
+}
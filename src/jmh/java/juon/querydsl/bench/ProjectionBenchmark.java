@@ -0,0 +1,81 @@
+package juon.querydsl.bench;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import juon.querydsl.dto.MemberDTO;
+import juon.querydsl.dto.QMemberDTO;
+import juon.querydsl.query.FastProjections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * DTO projection 방식별 처리량. rows 개를 한 번에 읽는다.
+ * Projections.* 와 FastProjections.* 는 같은 결과를 만드므로 차이는 row 매핑 비용이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProjectionBenchmark {
+    @Param({"10000"})
+    public int rows;
+
+    @Benchmark
+    public List<MemberDTO> bean(BenchmarkDatabase db) {
+        return fetch(db, Projections.bean(MemberDTO.class, member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> fields(BenchmarkDatabase db) {
+        return fetch(db, Projections.fields(MemberDTO.class, member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> constructor(BenchmarkDatabase db) {
+        return fetch(db, Projections.constructor(MemberDTO.class, member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> queryProjection(BenchmarkDatabase db) {
+        return fetch(db, new QMemberDTO(member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> fastBean(BenchmarkDatabase db) {
+        return fetch(db, FastProjections.bean(MemberDTO.class, member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> fastFields(BenchmarkDatabase db) {
+        return fetch(db, FastProjections.fields(MemberDTO.class, member.username, member.age));
+    }
+
+    @Benchmark
+    public List<MemberDTO> fastConstructor(BenchmarkDatabase db) {
+        return fetch(db, FastProjections.constructor(MemberDTO.class, member.username, member.age));
+    }
+
+    private List<MemberDTO> fetch(BenchmarkDatabase db, Expression<MemberDTO> projection) {
+        return db.read(factory -> factory
+                .select(projection)
+                .from(member)
+                .orderBy(member.id.asc())
+                .limit(rows)
+                .fetch());
+    }
+}
@@ -0,0 +1,104 @@
+package juon.querydsl.bench;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.QMember;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 에서 쓰는 조회 패턴별 처리량. (-prof gc 로 할당량도 같이 본다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Benchmark
+    public Member fetchOneByUsername(BenchmarkDatabase db) {
+        String username = db.username(ThreadLocalRandom.current().nextInt(db.members));
+        return db.read(factory -> factory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .fetchOne());
+    }
+
+    @Benchmark
+    public List<Member> offsetPaging(BenchmarkDatabase db) {
+        long offset = ThreadLocalRandom.current().nextInt(db.members - PAGE_SIZE);
+        return db.read(factory -> factory
+                .selectFrom(member)
+                .orderBy(member.id.asc())
+                .offset(offset)
+                .limit(PAGE_SIZE)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Tuple> groupByAggregation(BenchmarkDatabase db) {
+        return db.read(factory -> factory
+                .select(team.name, member.count(), member.age.avg())
+                .from(member)
+                .join(member.team(), team)
+                .groupBy(team.name)
+                .fetch());
+    }
+
+    @Benchmark
+    public void lazyTeam(BenchmarkDatabase db, Blackhole bh) {
+        db.read(factory -> {
+            factory.selectFrom(member)
+                    .orderBy(member.id.asc())
+                    .limit(100)
+                    .fetch()
+                    .forEach(m -> bh.consume(m.getTeam().getName()));
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void fetchJoinTeam(BenchmarkDatabase db, Blackhole bh) {
+        db.read(factory -> {
+            factory.selectFrom(member)
+                    .join(member.team(), team).fetchJoin()
+                    .orderBy(member.id.asc())
+                    .limit(100)
+                    .fetch()
+                    .forEach(m -> bh.consume(m.getTeam().getName()));
+            return null;
+        });
+    }
+
+    @Benchmark
+    public List<Member> correlatedSubquery(BenchmarkDatabase db) {
+        QMember sub = new QMember("sub");
+        return db.read(factory -> factory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions
+                                .select(sub.age.max())
+                                .from(sub)
+                                .where(sub.team().eq(member.team()))))
+                .fetch());
+    }
+}
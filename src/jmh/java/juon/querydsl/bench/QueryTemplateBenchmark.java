@@ -0,0 +1,73 @@
+package juon.querydsl.bench;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.query.QueryTemplateCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 모양, 다른 값의 동적 검색을 그대로 실행(fetch)할 때와 QueryTemplateCache 로 실행할 때.
+ * id 하나로 좁혀서 DB 시간을 줄였으므로 차이는 대부분 JPQL 직렬화 비용이다.
+ * conditions 가 많을수록 직렬화 비용도, hit 의 clone/ReplaceVisitor/key 비교 비용도 같이 커진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryTemplateBenchmark {
+    @Param({"1", "4"})
+    public int conditions;
+
+    QueryTemplateCache templateCache;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase db) {
+        templateCache = db.context.getBean(QueryTemplateCache.class);
+    }
+
+    @Benchmark
+    public List<String> plain(BenchmarkDatabase db) {
+        return db.read(factory -> search(factory, db.members).fetch());
+    }
+
+    @Benchmark
+    public List<String> templateCached(BenchmarkDatabase db) {
+        return db.read(factory -> templateCache.fetch(search(factory, db.members)));
+    }
+
+    private JPAQuery<String> search(JPAQueryFactory factory, int members) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BooleanBuilder where = new BooleanBuilder(member.id.eq((long) random.nextInt(members) + 1));
+        if (conditions > 1) {
+            where.and(member.age.between(random.nextInt(20), 60 + random.nextInt(20)));
+            where.and(member.username.startsWith("member"));
+            where.and(team.name.startsWith("team"));
+        }
+        return factory
+                .select(member.username)
+                .from(member)
+                .join(member.team(), team)
+                .where(where);
+    }
+}
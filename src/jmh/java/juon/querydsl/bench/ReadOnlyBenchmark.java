@@ -0,0 +1,61 @@
+package juon.querydsl.bench;
+
+import juon.querydsl.entity.Member;
+import juon.querydsl.query.ReadOnlyQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * rows 개 엔티티를 읽고 커밋까지 하는 비용.
+ * managed : 스냅샷 + 커밋 시 dirty checking, readOnlyQuery / readOnlyTransaction : 둘 다 없음
+ * -prof gc 의 gc.alloc.rate.norm 으로 엔티티당 메모리 차이를 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadOnlyBenchmark {
+    @Param({"10000"})
+    public int rows;
+
+    @Benchmark
+    public List<Member> managed(BenchmarkDatabase db) {
+        return db.write(factory -> factory
+                .selectFrom(member)
+                .orderBy(member.id.asc())
+                .limit(rows)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyQuery(BenchmarkDatabase db) {
+        return db.write(factory -> ReadOnlyQuery.of(factory.selectFrom(member))
+                .orderBy(member.id.asc())
+                .limit(rows)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyTransaction(BenchmarkDatabase db) {
+        return db.read(factory -> factory
+                .selectFrom(member)
+                .orderBy(member.id.asc())
+                .limit(rows)
+                .fetch());
+    }
+}
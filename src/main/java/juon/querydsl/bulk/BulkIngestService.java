@@ -0,0 +1,81 @@
+package juon.querydsl.bulk;
+
+import juon.querydsl.entity.Team;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * em.persist 를 하나씩 하면 insert 마다 DB 를 왕복한다.
+ * hibernate.jdbc.batch_size + order_inserts 설정과 함께 batchSize 마다 flush/clear 해서
+ * insert 를 JDBC batch 로 묶고, 영속성 컨텍스트가 끝없이 커지지 않도록 한다.
+ *
+ * persist 를 그대로 사용하므로 BaseEntity/BaseTimeEntity 의 auditing listener 도 동일하게 동작한다.
+ * 연관관계의 주인(Member.team)이 가리키는 Team 은 Member 보다 먼저 넘겨야 한다.
+ */
+@Service
+public class BulkIngestService {
+    @PersistenceContext
+    EntityManager em;
+
+    private final int defaultBatchSize;
+
+    public BulkIngestService(@Value("${bulk.batch-size:500}") int defaultBatchSize) {
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    @Transactional
+    public IngestResult ingest(Iterable<?> entities) {
+        return ingest(entities.iterator(), defaultBatchSize);
+    }
+
+    @Transactional
+    public IngestResult ingest(Stream<?> entities, int batchSize) {
+        return ingest(entities.iterator(), batchSize);
+    }
+
+    /**
+     * Team 과 changeTeam 으로 연결된 members 를 함께 저장한다.
+     */
+    @Transactional
+    public IngestResult ingestTeams(Iterable<Team> teams, int batchSize) {
+        Stream<Object> entities = StreamSupport.stream(teams.spliterator(), false)
+                .flatMap(team -> Stream.concat(Stream.of(team), team.getMembers().stream()));
+        return ingest(entities.iterator(), batchSize);
+    }
+
+    private IngestResult ingest(Iterator<?> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다: " + batchSize);
+        }
+
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+
+        long start = System.nanoTime();
+        long rows = 0;
+        try {
+            while (entities.hasNext()) {
+                em.persist(entities.next());
+
+                if (++rows % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        return new IngestResult(rows, System.nanoTime() - start);
+    }
+}
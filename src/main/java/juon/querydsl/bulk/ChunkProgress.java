@@ -0,0 +1,38 @@
+package juon.querydsl.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * chunk 하나가 커밋된 뒤의 진행 상황
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ChunkProgress {
+    private final String name;
+    /**
+     * 이번 chunk 의 id 범위 (fromId, toId]
+     */
+    private final long fromId;
+    private final long toId;
+    private final long maxId;
+    private final long chunkRows;
+    private final long totalRows;
+    private final long chunkNanos;
+    /**
+     * lock 시간 예산에 맞춰 조정된 다음 chunk 크기
+     */
+    private final int nextChunkSize;
+
+    public long chunkMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(chunkNanos);
+    }
+
+    public double percent() {
+        return maxId == 0 ? 100 : toId * 100.0 / maxId;
+    }
+}
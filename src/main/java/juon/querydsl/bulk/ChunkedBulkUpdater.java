@@ -0,0 +1,143 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.BulkUpdateCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 테이블 전체에 대한 update 를 한 문장으로 실행하면 끝날 때까지 row lock 을 잡고 undo 가 쌓인다.
+ * 여기서는 id 범위로 나눠서 chunk 마다 별도 트랜잭션으로 커밋하고, 초당 row 수/lock 시간 예산에 맞춰 속도를 조절한다.
+ *
+ * 진행 위치(BulkUpdateCheckpoint)는 chunk 와 같은 트랜잭션에서 저장되므로 같은 이름으로 다시 실행하면 이어서 진행한다.
+ * 범위는 시작 시점의 max(id) 까지이고, 호출하는 쪽에 트랜잭션이 없어야 chunk 단위로 커밋된다.
+ */
+@Slf4j
+@Service
+public class ChunkedBulkUpdater {
+    @PersistenceContext
+    EntityManager em;
+
+    private final JPAQueryFactory factory;
+    private final TransactionTemplate tx;
+
+    public ChunkedBulkUpdater(JPAQueryFactory factory, PlatformTransactionManager transactionManager) {
+        this.factory = factory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return 지금까지(이전 실행 포함) update 된 row 수
+     */
+    public long execute(ChunkedUpdate job) {
+        BulkUpdateCheckpoint checkpoint = tx.execute(status -> loadCheckpoint(job.getName()));
+        if (checkpoint.isFinished()) {
+            return checkpoint.getUpdatedRows();
+        }
+
+        NumberPath<Long> id = job.getId();
+        Tuple range = tx.execute(status -> factory
+                .select(id.min(), id.max())
+                .from((EntityPath<?>) id.getRoot())
+                .fetchOne());
+        Long minId = range.get(id.min());
+        Long maxId = range.get(id.max());
+
+        // 처음 실행이면 min(id) 부터, 이어서 실행이면 마지막으로 커밋된 id 다음부터
+        long lastId = minId == null ? 0 : Math.max(checkpoint.getLastId(), minId - 1);
+        long totalRows = checkpoint.getUpdatedRows();
+        int chunkSize = job.getChunkSize();
+
+        while (maxId != null && lastId < maxId) {
+            final long fromId = lastId;
+            final long toId = Math.min(lastId + chunkSize, maxId);
+
+            long start = System.nanoTime();
+            long chunkRows = tx.execute(status -> {
+                long updated = job.getClause()
+                        .apply(id.gt(fromId).and(id.loe(toId)))
+                        .execute();
+                em.find(BulkUpdateCheckpoint.class, job.getName()).advance(toId, updated);
+                return updated;
+            });
+            long chunkNanos = System.nanoTime() - start;
+
+            lastId = toId;
+            totalRows += chunkRows;
+            chunkSize = nextChunkSize(job, chunkSize, chunkNanos);
+
+            ChunkProgress progress = new ChunkProgress(job.getName(), fromId, toId, maxId,
+                    chunkRows, totalRows, chunkNanos, chunkSize);
+            log.debug("chunked update {}", progress);
+            job.getListener().accept(progress);
+
+            throttle(job, chunkRows, chunkNanos);
+        }
+
+        tx.executeWithoutResult(status -> em.find(BulkUpdateCheckpoint.class, job.getName()).finish());
+        return totalRows;
+    }
+
+    /**
+     * 끝났거나 중단된 실행 기록을 지워서 처음부터 다시 실행하게 한다.
+     */
+    public void reset(String name) {
+        tx.executeWithoutResult(status -> {
+            BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, name);
+            if (checkpoint != null) {
+                em.remove(checkpoint);
+            }
+        });
+    }
+
+    private BulkUpdateCheckpoint loadCheckpoint(String name) {
+        BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, name);
+        if (checkpoint == null) {
+            checkpoint = new BulkUpdateCheckpoint(name);
+            em.persist(checkpoint);
+        }
+        return checkpoint;
+    }
+
+    private int nextChunkSize(ChunkedUpdate job, int chunkSize, long chunkNanos) {
+        if (job.getMaxChunkDuration() == null) {
+            return chunkSize;
+        }
+        long budget = job.getMaxChunkDuration().toNanos();
+        if (chunkNanos > budget) {
+            return Math.max(1, chunkSize / 2);
+        }
+        if (chunkNanos < budget / 2) {
+            return Math.min(job.getMaxChunkSize(), chunkSize * 2);
+        }
+        return chunkSize;
+    }
+
+    private void throttle(ChunkedUpdate job, long chunkRows, long chunkNanos) {
+        if (job.getMaxRowsPerSecond() <= 0) {
+            return;
+        }
+        long minNanos = (long) (chunkRows / job.getMaxRowsPerSecond() * TimeUnit.SECONDS.toNanos(1));
+        long sleepNanos = minNanos - chunkNanos;
+        if (sleepNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("chunked update 가 중단되었습니다: " + job.getName(), e);
+        }
+    }
+}
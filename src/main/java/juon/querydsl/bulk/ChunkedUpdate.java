@@ -0,0 +1,56 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * ChunkedBulkUpdater 로 실행할 update 정의
+ * <pre>
+ * ChunkedUpdate.builder()
+ *         .name("member-age-plus-one")
+ *         .id(member.id)
+ *         .clause(range -> factory.update(member).set(member.age, member.age.add(1)).where(range))
+ *         .maxRowsPerSecond(5000)
+ *         .build();
+ * </pre>
+ */
+@Getter
+@Builder
+public class ChunkedUpdate {
+    /**
+     * checkpoint 이름. 같은 이름으로 다시 실행하면 마지막으로 커밋된 범위 다음부터 이어서 실행한다.
+     */
+    private final String name;
+    /**
+     * chunk 를 나눌 기준 id
+     */
+    private final NumberPath<Long> id;
+    /**
+     * id 범위 조건을 받아서 update 절을 만든다. 범위 조건은 반드시 where 에 포함해야 한다.
+     */
+    private final Function<Predicate, JPAUpdateClause> clause;
+
+    @Builder.Default
+    private final int chunkSize = 1000;
+    @Builder.Default
+    private final int maxChunkSize = 100_000;
+    /**
+     * 초당 update row 수 상한. 0 이면 제한 없음
+     */
+    @Builder.Default
+    private final double maxRowsPerSecond = 0;
+    /**
+     * chunk 하나가 lock 을 잡는 시간 예산. 넘으면 chunk 를 줄이고 절반 이하면 늘린다. null 이면 고정 크기
+     */
+    private final Duration maxChunkDuration;
+    @Builder.Default
+    private final Consumer<ChunkProgress> listener = progress -> {
+    };
+}
@@ -0,0 +1,19 @@
+package juon.querydsl.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class IngestResult {
+    private final long rows;
+    private final long elapsedNanos;
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,88 @@
+package juon.querydsl.bulk;
+
+import juon.querydsl.entity.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item 처럼 id 를 직접 할당하는 엔티티는 isNew() 로 새 row 의 select 는 피할 수 있지만,
+ * 이미 있는 row 를 다시 저장하면 merge 때문에 row 마다 select 가 나간다.
+ * 여기서는 chunk 단위로 기존 row 를 한 번에 조회하고 MERGE INTO ... KEY(id) 를 JDBC batch 로 보낸다.
+ *
+ * chunk 마다 select 1 번 + batch 1 번이므로 round trip 은 row 수가 아니라 chunk 수에 비례한다.
+ * 영속성 컨텍스트를 거치지 않으므로 이미 로딩된 Item 은 갱신되지 않는다.
+ */
+@Service
+public class ItemUpsertService {
+    private static final String SELECT_EXISTING = "select id, created_date from item where id in (:ids)";
+    private static final String MERGE = "merge into item (id, created_date) key (id) values (?, ?)";
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public ItemUpsertService(NamedParameterJdbcTemplate jdbcTemplate,
+                             @Value("${bulk.upsert-chunk-size:10000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public UpsertResult upsert(Iterable<Item> items) {
+        // 아직 flush 되지 않은 Item 이 있으면 먼저 반영
+        em.flush();
+
+        long total = 0;
+        long inserted = 0;
+        Set<String> chunk = new LinkedHashSet<>();
+        for (Item item : items) {
+            chunk.add(item.getId());
+            if (chunk.size() == chunkSize) {
+                total += chunk.size();
+                inserted += upsertChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += chunk.size();
+            inserted += upsertChunk(chunk);
+        }
+        return new UpsertResult(inserted, total - inserted);
+    }
+
+    /**
+     * @return 새로 insert 된 row 수
+     */
+    private int upsertChunk(Set<String> ids) {
+        Map<String, Timestamp> existing = new HashMap<>();
+        jdbcTemplate.query(SELECT_EXISTING, Collections.singletonMap("ids", ids),
+                (RowCallbackHandler) rs -> existing.put(rs.getString("id"), rs.getTimestamp("created_date")));
+
+        // auditing(@CreatedDate) 은 새 row 에만 채우고 기존 row 는 원래 값을 유지
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            rows.add(new Object[]{id, existing.containsKey(id) ? existing.get(id) : now});
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(MERGE, rows);
+
+        return ids.size() - existing.size();
+    }
+}
@@ -0,0 +1,19 @@
+package juon.querydsl.bulk;
+
+/**
+ * bulk update 후 영속성 컨텍스트에 남아있는 대상 엔티티를 어떻게 맞출지
+ */
+public enum PersistenceContextSync {
+    /**
+     * 대상 엔티티를 detach. 다음 조회 때 DB 에서 다시 읽는다.
+     */
+    EVICT,
+    /**
+     * 대상 엔티티를 em.refresh. 같은 인스턴스를 계속 쓸 수 있지만 엔티티마다 select 가 나간다.
+     */
+    REFRESH,
+    /**
+     * 아무것도 하지 않음 (직접 flush/clear)
+     */
+    NONE
+}
@@ -0,0 +1,99 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.query.BulkClauseEvent;
+import juon.querydsl.query.BulkClauseListener;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * bulk 연산 후 em.flush(); em.clear(); 로 영속성 컨텍스트 전체를 버리는 대신,
+ * 영속성 컨텍스트에 있는 대상 타입 엔티티 중 where 조건에 맞는 것만 detach(또는 refresh) 한다.
+ *
+ * 실행 전에 "where 조건 and id in (관리중인 id)" 로 영향받을 엔티티를 찾는다.
+ * flush 는 직접 하지 않고 hibernate auto flush 에 맡기므로, 대상 테이블에 반영할 변경이 있을 때만 flush 된다.
+ * 대상 타입 엔티티가 영속성 컨텍스트에 없으면 추가 쿼리는 없다.
+ */
+@Component
+public class PersistenceContextSynchronizer implements BulkClauseListener {
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final JPAQueryFactory factory;
+    private final PersistenceContextSync mode;
+    private final ThreadLocal<List<Object>> affected = new ThreadLocal<>();
+
+    public PersistenceContextSynchronizer(JPAQueryFactory factory,
+                                          @Value("${bulk.persistence-context-sync:EVICT}") PersistenceContextSync mode) {
+        this.factory = factory;
+        this.mode = mode;
+    }
+
+    @Override
+    public void beforeExecute(BulkClauseEvent event) {
+        affected.remove();
+        if (mode == PersistenceContextSync.NONE || !em.isJoinedToTransaction()) {
+            return;
+        }
+
+        Map<Object, Object> managed = new HashMap<>();
+        String idProperty = null;
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (event.getEntity().getType().isInstance(entry.getKey()) && entry.getValue().getStatus() == Status.MANAGED) {
+                managed.put(entry.getValue().getId(), entry.getKey());
+                idProperty = entry.getValue().getPersister().getIdentifierPropertyName();
+            }
+        }
+        if (managed.isEmpty()) {
+            return;
+        }
+
+        PathBuilder<?> root = new PathBuilder<>(event.getEntity().getType(), event.getEntity().getMetadata());
+        PathBuilder<Object> id = root.get(idProperty);
+
+        List<Object> ids = new ArrayList<>(managed.keySet());
+        List<Object> entities = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_SIZE) {
+            List<Object> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size()));
+            for (Object matched : factory
+                    .select(id)
+                    .from(event.getEntity())
+                    .where(event.getWhere(), id.in(chunk))
+                    .fetch()) {
+                entities.add(managed.get(matched));
+            }
+        }
+        affected.set(entities);
+    }
+
+    @Override
+    public void afterExecute(BulkClauseEvent event, long affectedRows) {
+        List<Object> entities = affected.get();
+        affected.remove();
+        if (entities == null) {
+            return;
+        }
+
+        for (Object entity : entities) {
+            if (event.isDelete() || mode == PersistenceContextSync.EVICT) {
+                em.detach(entity);
+            } else {
+                em.refresh(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package juon.querydsl.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class UpsertResult {
+    private final long inserted;
+    private final long updated;
+}
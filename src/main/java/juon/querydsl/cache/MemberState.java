@@ -0,0 +1,20 @@
+package juon.querydsl.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * MemberUsernameCache 에 두는 회원 상태. 팀이 없으면 teamId 는 null 이다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class MemberState {
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+}
@@ -0,0 +1,216 @@
+package juon.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.query.BulkClauseEvent;
+import juon.querydsl.query.BulkClauseListener;
+import juon.querydsl.query.EntityWriteListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * member.username.eq(...).fetchOne() 조회를 위한 near-cache.
+ * username -> 회원 상태(MemberState: id, username, age, teamId)를 메모리에 둔다.
+ * - findStateByUsername : hit 이면 트랜잭션/영속성 컨텍스트가 새로워도 SQL 없이 돌려준다
+ * - findByUsername : 캐시된 id 로 em.find 한다. 관리되는 엔티티가 필요할 때 (영속성 컨텍스트에 없으면 pk 조회 한 번)
+ *
+ * 회원이 바뀌면 이전/이후 username 을 바로 지우고 트랜잭션이 끝난 뒤에 한 번 더 지운다.
+ * (커밋 전에 다른 트랜잭션이 이전 값으로 다시 채우는 경우 대비)
+ * - Member 변경/삭제의 flush : hibernate post-update/delete 이벤트
+ * - update(member) / delete(member) : BulkClauseListener (대상을 모르므로 전체)
+ * 커밋 전 값이 캐시에 들어가지 않도록, Member 를 쓴 트랜잭션에서는 캐시를 거치지 않고 DB 에서 읽는다.
+ * 쓰기 트랜잭션에서는 조회 전에 flush 해서 아직 flush 하지 않은 변경도 쓴 것으로 본다.
+ * username 은 unique 가 아니므로 같은 username 이 여럿이면 id 가 가장 작은 회원을 돌려준다.
+ */
+@Component
+public class MemberUsernameCache implements BulkClauseListener {
+    private static final String USERNAME = "username";
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    private final JPAQueryFactory factory;
+    private final LoadingCache<String, MemberState> states;
+
+    public MemberUsernameCache(JPAQueryFactory factory,
+                               @Value("${member.username-cache.max-size:100000}") long maxSize,
+                               @Value("${member.username-cache.refresh-after-write:5m}") Duration refreshAfterWrite) {
+        this.factory = factory;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(this::loadState);
+    }
+
+    @PostConstruct
+    void registerEntityListener() {
+        new MemberChangeListener().register(emf);
+    }
+
+    public Optional<MemberState> findStateByUsername(String username) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // dirty checking 으로만 보이는 변경은 flush 해야 listener 가 본다
+            em.flush();
+        }
+        if (writtenInTransaction()) {
+            return Optional.ofNullable(loadState(username));
+        }
+        return Optional.ofNullable(states.get(username));
+    }
+
+    public Optional<Member> findByUsername(String username) {
+        Optional<MemberState> state = findStateByUsername(username);
+        if (!state.isPresent()) {
+            return Optional.empty();
+        }
+
+        Member found = em.find(Member.class, state.get().getId());
+        if (found != null && username.equals(found.getUsername())) {
+            return Optional.of(found);
+        }
+
+        states.invalidate(username);
+        return Optional.ofNullable(factory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .orderBy(member.id.asc())
+                .fetchFirst());
+    }
+
+    public CacheStats stats() {
+        return states.stats();
+    }
+
+    public void invalidateAll() {
+        states.invalidateAll();
+    }
+
+    @Override
+    public void afterExecute(BulkClauseEvent event, long affectedRows) {
+        if (event.targets(Member.class)) {
+            markWritten();
+            invalidateAllInTransaction();
+        }
+    }
+
+    private MemberState loadState(String username) {
+        return factory
+                .select(Projections.constructor(MemberState.class,
+                        member.id, member.username, member.age, member.team().id))
+                .from(member)
+                .where(member.username.eq(username))
+                .orderBy(member.id.asc())
+                .fetchFirst();
+    }
+
+    private void invalidate(String username) {
+        states.invalidate(username);
+        afterCompletion(() -> states.invalidate(username));
+    }
+
+    private void invalidateAllInTransaction() {
+        states.invalidateAll();
+        afterCompletion(states::invalidateAll);
+    }
+
+    private boolean writtenInTransaction() {
+        return TransactionSynchronizationManager.getResource(this) != null;
+    }
+
+    /**
+     * 현재 트랜잭션이 끝날 때까지 캐시를 거치지 않는다.
+     */
+    private void markWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || writtenInTransaction()) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        afterCompletion(() -> TransactionSynchronizationManager.unbindResourceIfPossible(this));
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private class MemberChangeListener extends EntityWriteListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Member) {
+                markWritten();
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Member)) {
+                return;
+            }
+            markWritten();
+            if (event.getOldState() == null) {
+                // 이전 값을 모르면 (detached merge 등) 전체를 비운다
+                invalidateAllInTransaction();
+                return;
+            }
+
+            // age/team 도 캐시된 상태이므로 username 이 그대로여도 지운다.
+            // 바뀐 username 쪽에 캐시된 다른 회원보다 id 가 작을 수 있으므로 이후 username 도 지운다
+            int index = usernameIndex(event.getPersister());
+            Object before = event.getOldState()[index];
+            Object after = event.getState()[index];
+            if (before != null) {
+                invalidate((String) before);
+            }
+            if (after != null && !Objects.equals(before, after)) {
+                invalidate((String) after);
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Member) {
+                markWritten();
+                Object before = event.getDeletedState()[usernameIndex(event.getPersister())];
+                if (before != null) {
+                    invalidate((String) before);
+                }
+            }
+        }
+
+        private int usernameIndex(EntityPersister persister) {
+            return propertyIndex(persister, USERNAME);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package juon.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import juon.querydsl.query.BulkClauseEvent;
+import juon.querydsl.query.BulkClauseListener;
+import juon.querydsl.query.EntityWriteListener;
+import lombok.EqualsAndHashCode;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 집계/group by 처럼 자주 읽고 드물게 바뀌는 조회(Tuple, DTO, 스칼라)의 결과 캐시.
+ *
+ * List<Tuple> avgAges = resultCache.fetch(factory.select(team.name, member.age.avg())...groupBy(team.name));
+ *
+ * key 는 직렬화된 JPQL + 상수/파라미터 + limit/offset 이고, 결과에는 쿼리가 읽는 테이블(hibernate query space)을 태그로 붙인다.
+ * 테이블마다 버전을 두고, 결과는 조회 시작 시점의 버전과 함께 저장한다. 버전이 바뀐 결과는 쓰지 않는다.
+ * 버전은 아래 시점에 바로 한 번, 트랜잭션이 끝난 뒤에 한 번 더 올린다. (커밋 전에 다른 트랜잭션이 이전 값으로 다시 채우는 경우 대비)
+ * - 엔티티 insert/update/delete 의 flush : hibernate post-insert/update/delete 이벤트
+ * - Querydsl update/delete 절 : BulkClauseListener
+ * 트랜잭션 안에서 이미 쓴 테이블을 읽는 조회는 커밋 전 값이 캐시에 들어가지 않도록 캐시를 거치지 않는다.
+ * 아직 flush 하지 않은 변경도 쓴 것으로 보도록, 쓰기 트랜잭션 안에서는 캐시를 보기 전에 flush 한다.
+ *
+ * 크기는 결과 row 수의 합(max-rows)으로 제한하고, hit/miss/eviction 은 querydsl.result-cache 로 노출한다.
+ * 엔티티 조회는 영속성 컨텍스트 밖에서 인스턴스를 공유하게 되므로 캐시하지 않는다. (select(member, team.name) 처럼 일부만 엔티티여도)
+ * 결과 list 는 여러 호출자가 공유하므로 수정할 수 없다.
+ */
+@Component
+public class QueryResultCache implements BulkClauseListener {
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    private final Cache<Key, Entry> results;
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public QueryResultCache(MeterRegistry registry,
+                            @Value("${query.result-cache.max-rows:100000}") long maxRows,
+                            @Value("${query.result-cache.ttl:10m}") Duration ttl) {
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Key key, Entry entry) -> entry.rows.size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, results, "querydsl.result-cache");
+    }
+
+    @PostConstruct
+    void registerEntityListener() {
+        new WriteListener().register(emf);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        Expression<?> projection = metadata.getProjection();
+        if (projection == null || projection.accept(EntityProjection.INSTANCE, null)) {
+            throw new IllegalArgumentException("엔티티 조회 결과는 캐시할 수 없습니다. Tuple/DTO 로 조회하세요: " + projection);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // dirty checking 으로 찾는 변경은 flush 해야 listener 에 잡힌다
+            em.flush();
+        }
+
+        Key key = key(metadata);
+        Entry cached = results.getIfPresent(key);
+        Set<String> tables = cached != null ? cached.versions.keySet() : tables(key.jpql);
+        if (writtenInTransaction(tables)) {
+            return query.fetch();
+        }
+        if (cached != null && cached.isCurrent()) {
+            return (List<T>) cached.rows;
+        }
+
+        Map<String, Long> before = new HashMap<>();
+        for (String table : tables) {
+            before.put(table, version(table).get());
+        }
+        List<T> rows = Collections.unmodifiableList(new ArrayList<>(query.fetch()));
+        results.put(key, new Entry(rows, before));
+        return rows;
+    }
+
+    public <T> T fetchOne(JPAQuery<T> query) {
+        List<T> rows = fetch(query);
+        if (rows.size() > 1) {
+            throw new IllegalStateException("결과가 2건 이상입니다: " + rows.size());
+        }
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    @Override
+    public void afterExecute(BulkClauseEvent event, long affectedRows) {
+        written(tables(sessionFactory().getMetamodel().entityPersister(event.getEntity().getType())));
+    }
+
+    private Key key(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+        QueryModifiers modifiers = metadata.getModifiers();
+        return new Key(serializer.toString(), new ArrayList<>(serializer.getConstants()),
+                new HashMap<>(metadata.getParams()), modifiers.getLimit(), modifiers.getOffset());
+    }
+
+    /**
+     * 엔티티 flush / bulk 절로 tables 가 바뀌었을 때 호출된다.
+     * 트랜잭션 안이면 쓴 테이블을 기억해두었다가 트랜잭션이 끝날 때 버전을 한 번 더 올린다.
+     */
+    private void written(Collection<String> tables) {
+        tables.forEach(table -> version(table).incrementAndGet());
+        Set<String> written = writtenTables();
+        if (written != null) {
+            written.addAll(tables);
+        }
+    }
+
+    private boolean writtenInTransaction(Set<String> tables) {
+        Set<String> written = boundTables();
+        return written != null && !Collections.disjoint(written, tables);
+    }
+
+    private Set<String> writtenTables() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Set<String> written = boundTables();
+        if (written == null) {
+            Set<String> tables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryResultCache.this);
+                    tables.forEach(table -> version(table).incrementAndGet());
+                }
+            });
+            written = tables;
+        }
+        return written;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> boundTables() {
+        return (Set<String>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private AtomicLong version(String table) {
+        return versions.computeIfAbsent(table, name -> new AtomicLong());
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return emf.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * 쿼리가 읽는 테이블. 서브쿼리, join 한 엔티티의 테이블까지 포함된다.
+     */
+    private Set<String> tables(String jpql) {
+        Set<String> tables = new HashSet<>();
+        for (Serializable space : sessionFactory().getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getQuerySpaces()) {
+            tables.add(space.toString());
+        }
+        return tables;
+    }
+
+    private static Set<String> tables(EntityPersister persister) {
+        Set<String> tables = new HashSet<>();
+        for (Serializable space : persister.getQuerySpaces()) {
+            tables.add(space.toString());
+        }
+        return tables;
+    }
+
+    /**
+     * projection 어딘가에 엔티티가 있으면 true. 서브쿼리 안의 엔티티는 결과로 나오지 않으므로 보지 않는다.
+     */
+    private static class EntityProjection implements Visitor<Boolean, Void> {
+        private static final EntityProjection INSTANCE = new EntityProjection();
+
+        @Override
+        public Boolean visit(Constant<?> expr, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FactoryExpression<?> expr, Void context) {
+            return any(expr.getArgs());
+        }
+
+        @Override
+        public Boolean visit(Operation<?> expr, Void context) {
+            return any(expr.getArgs());
+        }
+
+        @Override
+        public Boolean visit(ParamExpression<?> expr, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Path<?> expr, Void context) {
+            return expr instanceof EntityPath;
+        }
+
+        @Override
+        public Boolean visit(SubQueryExpression<?> expr, Void context) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(TemplateExpression<?> expr, Void context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression && ((Expression<?>) arg).accept(this, null)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean any(List<Expression<?>> args) {
+            for (Expression<?> arg : args) {
+                if (arg.accept(this, null)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String jpql;
+        private final List<Object> constants;
+        private final Map<?, Object> params;
+        private final Long limit;
+        private final Long offset;
+
+        Key(String jpql, List<Object> constants, Map<?, Object> params, Long limit, Long offset) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.params = params;
+            this.limit = limit;
+            this.offset = offset;
+        }
+    }
+
+    private class Entry {
+        private final List<?> rows;
+        private final Map<String, Long> versions;
+
+        Entry(List<?> rows, Map<String, Long> versions) {
+            this.rows = rows;
+            this.versions = versions;
+        }
+
+        boolean isCurrent() {
+            for (Map.Entry<String, Long> table : versions.entrySet()) {
+                if (version(table.getKey()).get() != table.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private class WriteListener extends EntityWriteListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            written(tables(event.getPersister()));
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            written(tables(event.getPersister()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            written(tables(event.getPersister()));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package juon.querydsl.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class RegionStats {
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
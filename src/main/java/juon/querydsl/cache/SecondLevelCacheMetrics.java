@@ -0,0 +1,58 @@
+package juon.querydsl.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 2차 캐시 region 별 hit/miss/put 과 eviction 수.
+ * hit/miss/put 은 hibernate statistics(generate_statistics), eviction 은 JCache 통계 MBean 에서 읽는다.
+ *
+ * Querydsl update/delete 절은 JPQL bulk 쿼리로 실행되므로 hibernate 가 커밋 후에
+ * 대상 테이블을 쓰는 entity/collection region 을 비운다. (BulkOperationCleanupAction)
+ */
+@Component
+public class SecondLevelCacheMetrics {
+    private static final String JCACHE_STATISTICS = "javax.cache:type=CacheStatistics,*";
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    public List<RegionStats> regions() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        List<RegionStats> result = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                result.add(new RegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                        evictions(region)));
+            }
+        }
+        return result;
+    }
+
+    private long evictions(String region) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(JCACHE_STATISTICS), null)) {
+                if (region.equals(name.getKeyProperty("Cache"))) {
+                    return (Long) server.getAttribute(name, "CacheEvictions");
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("JCache 통계를 읽을 수 없습니다: " + region, e);
+        }
+        return 0;
+    }
+}
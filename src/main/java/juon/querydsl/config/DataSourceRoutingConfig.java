@@ -0,0 +1,68 @@
+package juon.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import juon.querydsl.routing.Replica;
+import juon.querydsl.routing.ReplicaReads;
+import juon.querydsl.routing.ReplicaRouting;
+import juon.querydsl.routing.ReplicaSelection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.routing.enabled=true 이면 spring.datasource 를 primary 로, replica-urls 를 replica 로 쓴다.
+ * (계정/드라이버는 primary 와 같다)
+ * replica 의 connectionTimeout 은 health-check-timeout 을 쓴다. 커넥션을 못 얻은 읽기는 그만큼만 기다리고 primary 로 간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+    private static final long MIN_CONNECTION_TIMEOUT_MS = 250;
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRouting replicaRouting(DataSourceProperties properties,
+                                         @Value("${datasource.routing.replica-urls}") List<String> replicaUrls,
+                                         @Value("${datasource.routing.selection:ROUND_ROBIN}") ReplicaSelection selection,
+                                         @Value("${datasource.routing.health-check-interval:5s}") Duration healthCheckInterval,
+                                         @Value("${datasource.routing.health-check-timeout:1s}") Duration healthCheckTimeout) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i))
+                    .build();
+            replica.setPoolName("replica" + (i + 1));
+            replica.setReadOnly(true);
+            // replica 가 떠 있지 않아도 애플리케이션은 뜨고, health check 가 내려간 것으로 표시한다
+            replica.setInitializationFailTimeout(-1);
+            // 커넥션을 못 얻으면 primary 로 보내므로 Hikari 기본값(30s)까지 기다리지 않는다. (Hikari 최소값 250ms)
+            replica.setConnectionTimeout(Math.max(MIN_CONNECTION_TIMEOUT_MS, healthCheckTimeout.toMillis()));
+            replicas.add(ReplicaRouting.replica(replica.getPoolName(), replica));
+        }
+        return new ReplicaRouting(primary, replicas, selection, healthCheckInterval, healthCheckTimeout);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouting replicaRouting) {
+        return new LazyConnectionDataSourceProxy(replicaRouting.dataSource());
+    }
+
+    @Bean
+    public ReplicaReads replicaReads(PlatformTransactionManager transactionManager) {
+        return new ReplicaReads(transactionManager);
+    }
+}
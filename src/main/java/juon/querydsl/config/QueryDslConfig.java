@@ -1,6 +1,14 @@
 package juon.querydsl.config;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.query.BulkAwareJPAQueryFactory;
+import juon.querydsl.query.BulkClauseListener;
+import juon.querydsl.query.QueryMetrics;
+import juon.querydsl.query.SqlStatementCounter;
+import juon.querydsl.routing.ReplicaReads;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,7 +21,14 @@ public class QueryDslConfig {
     EntityManager em;
 
     @Bean
-    public JPAQueryFactory jpaQueryFactory() {
-        return new JPAQueryFactory(em);
+    public JPAQueryFactory jpaQueryFactory(ObjectProvider<BulkClauseListener> bulkClauseListeners,
+                                           ObjectProvider<QueryMetrics> queryMetrics,
+                                           ObjectProvider<ReplicaReads> replicaReads) {
+        return new BulkAwareJPAQueryFactory(em, bulkClauseListeners, queryMetrics, replicaReads);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspector(SqlStatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
     }
 }
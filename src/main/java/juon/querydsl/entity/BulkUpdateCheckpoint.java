@@ -0,0 +1,41 @@
+package juon.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * chunk 단위 bulk update 의 진행 위치. chunk 의 update 와 같은 트랜잭션에서 저장되므로
+ * 중간에 실패해도 마지막으로 커밋된 id 범위 다음부터 다시 시작할 수 있다.
+ */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkUpdateCheckpoint extends JpaBaseEntity {
+    @Id
+    private String name;
+
+    private long lastId;
+
+    private long updatedRows;
+
+    private boolean finished;
+
+    public BulkUpdateCheckpoint(String name) {
+        this.name = name;
+    }
+
+    public void advance(long lastId, long updatedRows) {
+        this.lastId = lastId;
+        this.updatedRows += updatedRows;
+    }
+
+    public void finish() {
+        this.finished = true;
+    }
+}
@@ -1,11 +1,18 @@
 package juon.querydsl.entity;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 
 @Entity
 public class Hello {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "hello_seq")
+    @GenericGenerator(name = "hello_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hello_seq"))
     private Long id;
 }
@@ -1,16 +1,28 @@
 package juon.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.util.ObjectUtils;
 
 import javax.persistence.*;
 
 @Entity
+@NamedEntityGraph(name = Member.WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Setter @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(exclude = {"team"})
 public class Member extends BaseEntity {
-    @Id @GeneratedValue
+    public static final String WITH_TEAM = "Member.withTeam";
+
+    @Id
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
@@ -35,8 +47,17 @@ public class Member extends BaseEntity {
         }
     }
 
+    /**
+     * 팀이 커도 Team.members 를 로딩하지 않는다. (Team.addMember / removeMember 참고)
+     */
     public void changeTeam(Team team) {
+        Team previous = this.team;
         this.team = team;
-        team.getMembers().add(this);
+        if (previous != null && previous != team) {
+            previous.removeMember(this);
+        }
+        if (team != null && previous != team) {
+            team.addMember(this);
+        }
     }
 }
@@ -0,0 +1,33 @@
+package juon.querydsl.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 엔티티별 sequence 를 사용하고, allocation size 만큼의 id 블록을 메모리에서 나눠준다.
+ * 블록 할당은 hibernate 의 pooled / pooled-lo optimizer 가 동기화해서 처리하므로
+ * 여러 트랜잭션이 동시에 insert 해도 블록이 바닥날 때만 sequence 를 호출한다.
+ *
+ * 블록 크기는 @GenericGenerator 파라미터(increment_size)가 없으면 juon.id.allocation_size 설정을 따른다.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String STRATEGY = "juon.querydsl.entity.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "juon.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        if (!params.containsKey(INCREMENT_PARAM)) {
+            Integer allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                    .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+            params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -1,17 +1,30 @@
 package juon.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = Team.WITH_MEMBERS, attributeNodes = @NamedAttributeNode("members"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Setter @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team extends BaseTimeEntity {
-    @Id @GeneratedValue
+    public static final String WITH_MEMBERS = "Team.withMembers";
+
+    @Id
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
 
@@ -21,6 +34,25 @@ public class Team extends BaseTimeEntity {
         this.name = name;
     }
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
+
+    /**
+     * members 는 inverse(mappedBy) bag 이라 초기화 전의 add 는 hibernate 가 큐에 쌓아두고,
+     * 나중에 컬렉션이 초기화될 때 반영한다. (flush 되면 FK 로 DB 에 반영되므로 큐는 비워진다)
+     */
+    void addMember(Member member) {
+        members.add(member);
+    }
+
+    /**
+     * bag 의 remove 는 컬렉션을 초기화하므로, 이미 초기화된 경우에만 메모리에서 뺀다.
+     * 초기화 전이면 다음에 로딩할 때 DB(FK) 기준으로 빠져 있다.
+     */
+    void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package juon.querydsl.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 고정 크기 버퍼에 line 을 모았다가 FileChannel 로 한 번에 쓴다.
+ * row 수와 상관없이 버퍼 하나만 사용한다.
+ */
+class ChannelRowWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long bytes;
+
+    ChannelRowWriter(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void writeLine(String line) throws IOException {
+        byte[] data = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (data.length > buffer.remaining()) {
+            flush();
+        }
+        if (data.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(data));
+        } else {
+            buffer.put(data);
+        }
+        bytes += data.length;
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package juon.querydsl.export;
+
+public enum ExportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,24 @@
+package juon.querydsl.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ExportResult {
+    private final long rows;
+    private final long bytes;
+    private final long elapsedNanos;
+    /**
+     * chunk 마다 clear 하기 직전에 영속성 컨텍스트에 있던 엔티티 수의 최대값. chunk size 를 넘으면 row 수만큼 쌓이고 있다는 뜻이다.
+     */
+    private final int maxManagedEntities;
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
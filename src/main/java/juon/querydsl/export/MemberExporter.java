@@ -0,0 +1,100 @@
+package juon.querydsl.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.MemberDTO;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.stat.SessionStatistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+
+/**
+ * selectFrom(member).fetch() 는 모든 엔티티와 스냅샷을 영속성 컨텍스트에 올린 뒤에야 쓰기 시작한다.
+ * 여기서는 forward-only 커서(JPAQuery.iterate -> ScrollableResults)로 한 row 씩 읽어서
+ * 바로 MemberDTO 로 projection 하고 파일에 쓰기 때문에 row 수와 상관없이 메모리 사용량이 일정하다.
+ *
+ * chunk 마다 영속성 컨텍스트를 clear 하므로 다른 엔티티 작업과 섞이지 않는 트랜잭션에서 호출할 것.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "username,age,teamName";
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final JPAQueryFactory factory;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public ExportResult export(Path file, ExportFormat format, int chunkSize) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int maxManaged = 0;
+        SessionStatistics session = em.unwrap(Session.class).getStatistics();
+
+        try (ChannelRowWriter writer = new ChannelRowWriter(file, BUFFER_SIZE);
+             CloseableIterator<MemberDTO> cursor = factory
+                     .select(Projections.constructor(MemberDTO.class,
+                             member.username,
+                             member.age,
+                             team.name))
+                     .from(member)
+                     .leftJoin(member.team(), team)
+                     .orderBy(member.id.asc())
+                     .setHint(QueryHints.FETCH_SIZE, chunkSize)
+                     .setHint(QueryHints.READ_ONLY, true)
+                     .iterate()) {
+
+            if (format == ExportFormat.CSV) {
+                writer.writeLine(CSV_HEADER);
+            }
+
+            while (cursor.hasNext()) {
+                writer.writeLine(format == ExportFormat.CSV ? toCsv(cursor.next()) : toJson(cursor.next()));
+
+                if (++rows % chunkSize == 0) {
+                    writer.flush();
+                    maxManaged = Math.max(maxManaged, session.getEntityCount());
+                    em.clear();
+                }
+            }
+            maxManaged = Math.max(maxManaged, session.getEntityCount());
+            return new ExportResult(rows, writer.getBytes(), System.nanoTime() - start, maxManaged);
+        } catch (IOException e) {
+            throw new UncheckedIOException("export 실패: " + file, e);
+        }
+    }
+
+    private String toJson(MemberDTO dto) throws IOException {
+        return objectMapper.writeValueAsString(dto);
+    }
+
+    private String toCsv(MemberDTO dto) {
+        return csv(dto.getUsername()) + "," + dto.getAge() + "," + csv(dto.getTeamName());
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,14 @@
+package juon.querydsl.loadtest;
+
+/**
+ * QuerydslBasicTest 의 조회 패턴. 실행은 LoadScenarios 가 한다.
+ */
+public enum LoadScenario {
+    FETCH_ONE_BY_USERNAME,
+    OFFSET_PAGING,
+    GROUP_BY_TEAM,
+    LAZY_TEAM,
+    FETCH_JOIN_TEAM,
+    CORRELATED_SUBQUERY,
+    DTO_PROJECTION
+}
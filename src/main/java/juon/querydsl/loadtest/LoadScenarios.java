@@ -0,0 +1,103 @@
+package juon.querydsl.loadtest;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.dto.MemberDTO;
+import juon.querydsl.dto.QMemberDTO;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.QMember;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+
+/**
+ * 시나리오 하나 = 읽기 전용 트랜잭션 하나. 결과 크기(row 수)를 돌려준다.
+ * firstId ~ firstId + members 는 대략적인 member id 범위 (id 가 중간에 비어 있어도 된다)
+ */
+@Component
+public class LoadScenarios {
+    private static final int PAGE_SIZE = 20;
+
+    private final JPAQueryFactory factory;
+
+    public LoadScenarios(JPAQueryFactory factory) {
+        this.factory = factory;
+    }
+
+    @Transactional(readOnly = true)
+    public int run(LoadScenario scenario, long firstId, int members) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (scenario) {
+            case FETCH_ONE_BY_USERNAME:
+                return factory
+                        .selectFrom(member)
+                        .where(member.username.eq(SyntheticDataGenerator.username(random.nextInt(members))))
+                        .fetchFirst() == null ? 0 : 1;
+            case OFFSET_PAGING:
+                return factory
+                        .selectFrom(member)
+                        .orderBy(member.id.asc())
+                        .offset(random.nextInt(Math.max(1, members - PAGE_SIZE)))
+                        .limit(PAGE_SIZE)
+                        .fetch()
+                        .size();
+            case GROUP_BY_TEAM:
+                return factory
+                        .select(team.name, member.count(), member.age.avg())
+                        .from(member)
+                        .join(member.team(), team)
+                        .groupBy(team.name)
+                        .fetch()
+                        .size();
+            case LAZY_TEAM:
+                return touchTeams(factory
+                        .selectFrom(member)
+                        .where(member.id.goe(firstId + random.nextInt(members)))
+                        .orderBy(member.id.asc())
+                        .limit(100)
+                        .fetch());
+            case FETCH_JOIN_TEAM:
+                return touchTeams(factory
+                        .selectFrom(member)
+                        .join(member.team(), team).fetchJoin()
+                        .where(member.id.goe(firstId + random.nextInt(members)))
+                        .orderBy(member.id.asc())
+                        .limit(100)
+                        .fetch());
+            case CORRELATED_SUBQUERY: {
+                QMember sub = new QMember("sub");
+                return factory
+                        .selectFrom(member)
+                        .where(member.username.eq(SyntheticDataGenerator.username(random.nextInt(members))),
+                                member.age.goe(JPAExpressions
+                                        .select(sub.age.avg())
+                                        .from(sub)
+                                        .where(sub.team().eq(member.team()))))
+                        .fetch()
+                        .size();
+            }
+            case DTO_PROJECTION: {
+                List<MemberDTO> dtos = factory
+                        .select(new QMemberDTO(member.username, member.age))
+                        .from(member)
+                        .where(member.id.goe(firstId + random.nextInt(members)))
+                        .orderBy(member.id.asc())
+                        .limit(1000)
+                        .fetch();
+                return dtos.size();
+            }
+            default:
+                throw new IllegalArgumentException("알 수 없는 시나리오입니다: " + scenario);
+        }
+    }
+
+    private int touchTeams(List<Member> members) {
+        members.forEach(m -> m.getTeam().getName());
+        return members.size();
+    }
+}
@@ -0,0 +1,41 @@
+package juon.querydsl.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LoadTestReport {
+    private final int concurrency;
+    private final long elapsedMillis;
+    private final List<ScenarioStats> scenarios;
+    private final long peakHeapBytes;
+    private final long gcCount;
+    private final long gcMillis;
+
+    public long totalCount() {
+        return scenarios.stream().mapToLong(ScenarioStats::getCount).sum();
+    }
+
+    public long totalErrors() {
+        return scenarios.stream().mapToLong(ScenarioStats::getErrors).sum();
+    }
+
+    public double throughput() {
+        return elapsedMillis == 0 ? 0 : totalCount() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder()
+                .append(String.format("concurrency=%d elapsed=%dms total=%d errors=%d %.1f/s%n",
+                        concurrency, elapsedMillis, totalCount(), totalErrors(), throughput()));
+        scenarios.forEach(stats -> report.append(stats).append(System.lineSeparator()));
+        return report
+                .append(String.format("peak heap=%dMB gc count=%d gc time=%dms",
+                        peakHeapBytes / (1024 * 1024), gcCount, gcMillis))
+                .toString();
+    }
+}
@@ -0,0 +1,47 @@
+package juon.querydsl.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * --spring.profiles.active=loadtest 로 실행하면 데이터를 만들고 시나리오를 돌린 뒤 결과를 남기고 종료한다.
+ * 설정은 application-loadtest.yml 의 loadtest.* 참고
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class LoadTestRunner implements ApplicationRunner {
+    private final SyntheticDataGenerator generator;
+    private final ScenarioRunner runner;
+
+    @Value("${loadtest.data.generate:true}") boolean generate;
+    @Value("${loadtest.data.teams:2000}") int teams;
+    @Value("${loadtest.data.members:2000000}") int members;
+    @Value("${loadtest.data.items:500000}") int items;
+    @Value("${loadtest.data.zipf-exponent:1.1}") double zipfExponent;
+    @Value("${loadtest.data.seed:42}") long seed;
+    @Value("${loadtest.mix}") String mix;
+    @Value("${loadtest.concurrency:32}") int concurrency;
+    @Value("${loadtest.warmup:30s}") Duration warmup;
+    @Value("${loadtest.duration:2m}") Duration duration;
+
+    public LoadTestRunner(SyntheticDataGenerator generator, ScenarioRunner runner) {
+        this.generator = generator;
+        this.runner = runner;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (generate) {
+            generator.generate(teams, members, items, zipfExponent, seed);
+        }
+        LoadTestReport report = runner.run(ScenarioRunner.parseMix(mix), concurrency, warmup, duration);
+        log.info("load test report\n{}", report);
+    }
+}
@@ -0,0 +1,159 @@
+package juon.querydsl.loadtest;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * 시나리오를 가중치(mix) 비율로 섞어서 concurrency 개 스레드로 계속 실행한다.
+ * warmup 동안의 실행은 집계하지 않고, 이후 duration 동안의 지연시간 분포/처리량/heap/GC 를 모은다.
+ * 지연시간 분포는 micrometer Timer(HdrHistogram 기반)를 이 실행 전용 registry 에 만들어서 구한다.
+ */
+@Slf4j
+@Component
+public class ScenarioRunner {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final JPAQueryFactory factory;
+    private final LoadScenarios scenarios;
+
+    public ScenarioRunner(JPAQueryFactory factory, LoadScenarios scenarios) {
+        this.factory = factory;
+        this.scenarios = scenarios;
+    }
+
+    public LoadTestReport run(Map<LoadScenario, Integer> mix, int concurrency, Duration warmup, Duration duration)
+            throws InterruptedException {
+        Tuple range = factory.select(member.id.min(), member.count()).from(member).fetchOne();
+        Long firstId = range.get(member.id.min());
+        int members = range.get(member.count()).intValue();
+        if (firstId == null) {
+            throw new IllegalStateException("member 데이터가 없습니다. SyntheticDataGenerator 로 먼저 데이터를 만드세요.");
+        }
+
+        LoadScenario[] weighted = weighted(mix);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Map<LoadScenario, Timer> timers = new EnumMap<>(LoadScenario.class);
+        Map<LoadScenario, LongAdder> errors = new EnumMap<>(LoadScenario.class);
+        for (LoadScenario scenario : mix.keySet()) {
+            timers.put(scenario, Timer.builder("loadtest")
+                    .tag("scenario", scenario.name())
+                    .publishPercentiles(PERCENTILES)
+                    .distributionStatisticExpiry(warmup.plus(duration).plusMinutes(1))
+                    .distributionStatisticBufferLength(1)
+                    .register(registry));
+            errors.put(scenario, new LongAdder());
+        }
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    LoadScenario scenario = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                    long start = System.nanoTime();
+                    try {
+                        scenarios.run(scenario, firstId, members);
+                        if (start >= measureFrom) {
+                            timers.get(scenario).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    } catch (RuntimeException e) {
+                        if (start >= measureFrom) {
+                            errors.get(scenario).increment();
+                        }
+                        log.debug("{} 실패", scenario, e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 200, TimeUnit.MILLISECONDS);
+
+        workers.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS);
+        heapSampler.shutdownNow();
+
+        List<ScenarioStats> stats = new ArrayList<>();
+        double seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        for (Map.Entry<LoadScenario, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+            stats.add(new ScenarioStats(entry.getKey(), timer.count(), errors.get(entry.getKey()).sum(),
+                    timer.count() / seconds,
+                    percentiles[0].value(TimeUnit.MILLISECONDS),
+                    percentiles[1].value(TimeUnit.MILLISECONDS),
+                    percentiles[2].value(TimeUnit.MILLISECONDS),
+                    timer.max(TimeUnit.MILLISECONDS)));
+        }
+        return new LoadTestReport(concurrency, duration.toMillis(), stats, peakHeap.get(),
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    /**
+     * "FETCH_ONE_BY_USERNAME=40,OFFSET_PAGING=20" 형식
+     */
+    public static Map<LoadScenario, Integer> parseMix(String mix) {
+        Map<LoadScenario, Integer> parsed = new EnumMap<>(LoadScenario.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix 형식이 잘못되었습니다: " + entry);
+            }
+            parsed.put(LoadScenario.valueOf(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        return parsed;
+    }
+
+    private static LoadScenario[] weighted(Map<LoadScenario, Integer> mix) {
+        List<LoadScenario> weighted = new ArrayList<>();
+        mix.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("mix 에 가중치가 1 이상인 시나리오가 없습니다.");
+        }
+        return weighted.toArray(new LoadScenario[0]);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
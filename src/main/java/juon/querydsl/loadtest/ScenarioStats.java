@@ -0,0 +1,23 @@
+package juon.querydsl.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ScenarioStats {
+    private final LoadScenario scenario;
+    private final long count;
+    private final long errors;
+    private final double throughput;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @Override
+    public String toString() {
+        return String.format("%-22s count=%d errors=%d %.1f/s p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                scenario, count, errors, throughput, p50Millis, p95Millis, p99Millis, maxMillis);
+    }
+}
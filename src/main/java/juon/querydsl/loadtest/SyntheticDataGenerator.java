@@ -0,0 +1,94 @@
+package juon.querydsl.loadtest;
+
+import juon.querydsl.bulk.BulkIngestService;
+import juon.querydsl.bulk.ItemUpsertService;
+import juon.querydsl.entity.Item;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 부하 테스트용 데이터. 운영과 비슷하게 치우친 분포로 만든다.
+ * - 팀 크기 : zipf (앞 순위 팀일수록 회원이 많다)
+ * - 나이 : 18 + lognormal (20~30대에 몰리고 꼬리가 길다)
+ * 같은 seed 면 같은 데이터가 만들어진다. 이름은 모두 "load" 로 시작한다.
+ */
+@Slf4j
+@Component
+public class SyntheticDataGenerator {
+    public static final String PREFIX = "load";
+    private static final int BATCH_SIZE = 1000;
+
+    private final BulkIngestService ingestService;
+    private final ItemUpsertService itemUpsertService;
+
+    public SyntheticDataGenerator(BulkIngestService ingestService, ItemUpsertService itemUpsertService) {
+        this.ingestService = ingestService;
+        this.itemUpsertService = itemUpsertService;
+    }
+
+    public void generate(int teams, int members, int items, double zipfExponent, long seed) {
+        List<Team> saved = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            saved.add(new Team(PREFIX + "Team" + i));
+        }
+        log.info("teams {}", ingestService.ingest(saved));
+
+        double[] cumulative = zipfCumulative(teams, zipfExponent);
+        Random random = new Random(seed);
+        log.info("members {}", ingestService.ingest(IntStream.range(0, members).mapToObj(i -> {
+            // changeTeam 을 쓰면 (detach 된) Team.members 에 수백만 건이 쌓이므로 FK 만 설정한다
+            Member member = new Member(username(i), age(random));
+            member.setTeam(saved.get(teamIndex(cumulative, random)));
+            return member;
+        }), BATCH_SIZE));
+
+        log.info("items {}", itemUpsertService.upsert(() -> new Iterator<Item>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < items;
+            }
+
+            @Override
+            public Item next() {
+                return new Item(PREFIX + "Item" + next++);
+            }
+        }));
+    }
+
+    public static String username(int i) {
+        return PREFIX + i;
+    }
+
+    private static int age(Random random) {
+        return 18 + (int) Math.min(62, Math.round(Math.exp(2.5 + 0.5 * random.nextGaussian())));
+    }
+
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int teamIndex(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+    }
+}
@@ -0,0 +1,61 @@
+package juon.querydsl.paging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 조건별 전체 건수를 TTL 동안 보관한다.
+ * 건수가 조금 늦게 반영되어도 괜찮은 목록 화면에서만 사용할 것.
+ */
+@Component
+public class CountCache {
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CountCache(@Value("${paging.count-cache.ttl:1m}") Duration ttl,
+                      @Value("${paging.count-cache.max-size:1000}") int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public long get(String key, Supplier<Long> counter) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.createdAt < ttlNanos) {
+            return entry.total;
+        }
+
+        long total = counter.get();
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+        }
+        if (entries.size() < maxSize) {
+            entries.put(key, new Entry(total, now));
+        }
+        return total;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> now - entry.createdAt >= ttlNanos);
+    }
+
+    private static class Entry {
+        private final long total;
+        private final long createdAt;
+
+        Entry(long total, long createdAt) {
+            this.total = total;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package juon.querydsl.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * keyset 페이징 결과. nextCursor 는 마지막 row 의 정렬키를 담은 불투명 문자열이다.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KeysetPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+}
@@ -0,0 +1,172 @@
+package juon.querydsl.paging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import juon.querydsl.entity.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * offset/limit 대신 마지막 row 의 정렬키 이후부터 읽는 keyset(seek) 페이징.
+ * offset 은 건너뛴 row 를 DB 가 모두 읽고 버리기 때문에 뒤쪽 페이지일수록 느려지지만,
+ * seek 조건은 인덱스를 타고 바로 시작 위치로 가기 때문에 몇 번째 페이지든 비용이 같다.
+ *
+ * 정렬키는 null 이 아니어야 한다. (nullsFirst/nullsLast 는 seek 조건으로 표현할 수 없음)
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPager {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * member_id 를 tie-breaker 로 사용하는 Member 전용 페이징
+     */
+    public KeysetPage<Member> fetchMembers(JPAQuery<Member> query, List<OrderSpecifier<?>> orders, String cursor, int size) {
+        return fetch(query, orders, member.id, cursor, size);
+    }
+
+    /**
+     * @param query      where 조건까지 적용된 쿼리. 정렬/limit 은 여기서 적용한다.
+     * @param orders     정렬 조건 (Path 대상만 허용)
+     * @param tieBreaker 유일한 값을 가지는 컬럼. 정렬키가 같은 row 들의 순서를 고정한다.
+     * @param cursor     이전 페이지의 nextCursor. 첫 페이지는 null
+     */
+    public <T> KeysetPage<T> fetch(JPAQuery<T> query,
+                                   List<OrderSpecifier<?>> orders,
+                                   ComparableExpressionBase<?> tieBreaker,
+                                   String cursor,
+                                   int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다: " + size);
+        }
+
+        List<OrderSpecifier<?>> keys = new ArrayList<>(orders);
+        keys.add(tieBreaker.asc());
+        for (OrderSpecifier<?> key : keys) {
+            if (!(key.getTarget() instanceof Path)) {
+                throw new IllegalArgumentException("keyset 정렬 대상은 Path 여야 합니다: " + key.getTarget());
+            }
+            if (key.getNullHandling() != OrderSpecifier.NullHandling.Default) {
+                throw new IllegalArgumentException("keyset 정렬은 nulls first/last 를 지원하지 않습니다: " + key);
+            }
+        }
+
+        if (cursor != null) {
+            query.where(seek(keys, decode(cursor, keys)));
+        }
+
+        // 다음 페이지 존재 여부를 알기 위해 한 건 더 조회
+        List<T> rows = query
+                .orderBy(keys.toArray(new OrderSpecifier<?>[0]))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(content.get(content.size() - 1), keys) : null;
+
+        return new KeysetPage<>(content, nextCursor, hasNext);
+    }
+
+    /**
+     * (k1 > v1) or (k1 = v1 and k2 > v2) or ... 형태의 seek 조건
+     */
+    private BooleanBuilder seek(List<OrderSpecifier<?>> keys, List<Object> values) {
+        BooleanBuilder seek = new BooleanBuilder();
+        BooleanBuilder prefixEq = new BooleanBuilder();
+
+        for (int i = 0; i < keys.size(); i++) {
+            Expression<?> target = keys.get(i).getTarget();
+            Expression<Object> value = Expressions.constant(values.get(i));
+
+            Ops op = keys.get(i).getOrder() == Order.ASC ? Ops.GT : Ops.LT;
+            BooleanExpression after = Expressions.booleanOperation(op, target, value);
+
+            seek.or(new BooleanBuilder(prefixEq).and(after));
+            prefixEq.and(Expressions.booleanOperation(Ops.EQ, target, value));
+        }
+        return seek;
+    }
+
+    private String encode(Object row, List<OrderSpecifier<?>> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (OrderSpecifier<?> key : keys) {
+            Object value = keyOf(row, key.getTarget());
+            if (value == null) {
+                throw new IllegalStateException("keyset 정렬키가 null 입니다: " + key.getTarget());
+            }
+            values.add(value);
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(values);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cursor 를 만들 수 없습니다.", e);
+        }
+    }
+
+    private List<Object> decode(String cursor, List<OrderSpecifier<?>> keys) {
+        JsonNode nodes;
+        try {
+            nodes = objectMapper.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + cursor, e);
+        }
+
+        if (!nodes.isArray() || nodes.size() != keys.size()) {
+            throw new IllegalArgumentException("정렬 조건과 맞지 않는 cursor 입니다: " + cursor);
+        }
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            // 파라미터 바인딩 타입이 컬럼 타입과 같아야 하므로 Path 의 타입으로 변환 (ex. Integer -> Long)
+            values.add(objectMapper.convertValue(nodes.get(i), keys.get(i).getTarget().getType()));
+        }
+        return values;
+    }
+
+    private Object keyOf(Object row, Expression<?> target) {
+        if (row instanceof Tuple) {
+            return ((Tuple) row).get(target);
+        }
+        return PropertyAccessorFactory.forBeanPropertyAccess(row)
+                .getPropertyValue(propertyPath((Path<?>) target));
+    }
+
+    /**
+     * member.team.name -> "team.name" (root alias 는 제외)
+     */
+    private String propertyPath(Path<?> path) {
+        Deque<String> names = new ArrayDeque<>();
+        PathMetadata metadata = path.getMetadata();
+        while (!metadata.isRoot()) {
+            names.addFirst(metadata.getName());
+            metadata = metadata.getParent().getMetadata();
+        }
+        return String.join(".", names);
+    }
+}
@@ -0,0 +1,71 @@
+package juon.querydsl.paging;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * fetchResults() 는 항상 count 쿼리를 한 번 더 실행한다.
+ * 여기서는 조회한 페이지만으로 전체 건수를 알 수 있으면 count 쿼리를 생략한다.
+ * - 첫 페이지인데 content 가 page size 보다 작을 때
+ * - 마지막 페이지일 때 (offset + content size)
+ */
+@Component
+@RequiredArgsConstructor
+public class QuerydslPager {
+    @PersistenceContext
+    EntityManager em;
+
+    private final CountCache countCache;
+
+    /**
+     * @param query      content 조회 쿼리. Pageable 의 정렬/offset/limit 은 여기서 적용한다.
+     * @param countQuery 같은 조건의 count 쿼리 (ex. select(member.count()))
+     */
+    public <T> Page<T> fetchPage(JPAQuery<T> query, JPAQuery<Long> countQuery, Pageable pageable) {
+        List<T> content = applyPageable(query, pageable).fetch();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchOne());
+    }
+
+    /**
+     * count 쿼리가 필요할 때도 같은 조건의 건수가 캐시되어 있으면 재사용한다.
+     */
+    public <T> Page<T> fetchPageCachingTotal(JPAQuery<T> query, JPAQuery<Long> countQuery, Pageable pageable) {
+        List<T> content = applyPageable(query, pageable).fetch();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(countKey(countQuery), countQuery::fetchOne));
+    }
+
+    private <T> JPAQuery<T> applyPageable(JPAQuery<T> query, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            EntityPath<?> root = (EntityPath<?>) query.getMetadata().getJoins().get(0).getTarget();
+            new Querydsl(em, new PathBuilder<>(root.getType(), root.getMetadata()))
+                    .applySorting(pageable.getSort(), query);
+        }
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+        return query;
+    }
+
+    /**
+     * expression 의 toString 은 상수값까지 포함하므로 조건이 같으면 같은 key 가 된다.
+     */
+    private String countKey(JPAQuery<Long> countQuery) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        return metadata.getProjection() + "|" + metadata.getJoins() + "|" + metadata.getWhere()
+                + "|" + metadata.getGroupBy() + "|" + metadata.getHaving();
+    }
+}
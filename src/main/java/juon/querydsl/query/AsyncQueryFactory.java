@@ -0,0 +1,96 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 서로 관계없는 조회 여러 개를 동시에 실행해서, 전체 시간이 합이 아니라 가장 느린 조회 시간이 되게 한다.
+ *
+ * CompletableFuture<Long> total = asyncQueries.supply(f -> f.select(member.count()).from(member).fetchOne());
+ *
+ * 조회마다 풀 스레드에서 별도 트랜잭션(= 별도 EntityManager)으로 실행한다.
+ * - 호출한 쪽이 읽기 전용 트랜잭션이거나 트랜잭션이 없으면 읽기 전용으로 (replica 라우팅 대상)
+ * - 호출한 쪽이 읽기/쓰기 트랜잭션이면 읽기/쓰기로. 단, 호출한 쪽의 커밋 전 변경은 보이지 않는다
+ * 결과 엔티티는 detach 된 상태이므로 DTO/Tuple 조회에 쓴다.
+ *
+ * 풀이 가득 차면(스레드 pool-size, 대기열 queue-capacity) future 가 RejectedExecutionException 으로 끝난다.
+ * queue-capacity 가 0 이면 대기열 없이 빈 스레드가 없을 때 바로 거절한다.
+ *
+ * pool-size 는 spring.datasource.hikari.maximum-pool-size(기본 10)보다 작아야 한다.
+ * 읽기/쓰기 트랜잭션에서 호출한 쪽은 커넥션을 잡은 채로 결과를 기다리므로, 호출한 쪽들이 커넥션을 다 잡으면
+ * 풀 스레드가 커넥션을 얻지 못해 connectionTimeout 까지 서로 기다린다.
+ * querydsl.async.* : 풀 상태(ExecutorServiceMetrics), 대기 시간(queue), 거절 수(rejected)
+ */
+@Component
+public class AsyncQueryFactory {
+    private final JPAQueryFactory factory;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final Timer queueTime;
+    private final Counter rejected;
+
+    public AsyncQueryFactory(JPAQueryFactory factory, PlatformTransactionManager transactionManager, MeterRegistry registry,
+                             @Value("${query.async.pool-size:8}") int poolSize,
+                             @Value("${query.async.queue-capacity:100}") int queueCapacity) {
+        this.factory = factory;
+        this.transactionManager = transactionManager;
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "querydsl-async-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "querydsl.async");
+        this.queueTime = Timer.builder("querydsl.async.queue")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.rejected = Counter.builder("querydsl.async.rejected").register(registry);
+    }
+
+    public <T> CompletableFuture<T> supply(Function<JPAQueryFactory, T> query) {
+        boolean readOnly = !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueTime.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return tx.execute(status -> query.apply(factory));
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
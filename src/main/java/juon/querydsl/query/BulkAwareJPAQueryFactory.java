@@ -0,0 +1,149 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import juon.querydsl.routing.ReplicaReads;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * update/delete 절은 영속성 컨텍스트와 엔티티 이벤트를 거치지 않으므로,
+ * 실행 전후로 BulkClauseListener 에 무엇을 바꾸는지 알려준다.
+ * listener 는 실행 시점에 찾기 때문에 listener 가 이 factory 를 주입받아도 순환참조가 생기지 않는다.
+ *
+ * QueryMetrics 가 등록되어 있으면(query.metrics.enabled=true) 조회는 InstrumentedJPAQuery 로,
+ * ReplicaReads 가 등록되어 있으면(datasource.routing.enabled=true) ReplicaAwareJPAQuery 로 만든다.
+ */
+public class BulkAwareJPAQueryFactory extends JPAQueryFactory {
+    private final EntityManager em;
+    private final ObjectProvider<BulkClauseListener> listeners;
+    private final ObjectProvider<QueryMetrics> metrics;
+    private final ObjectProvider<ReplicaReads> replicaReads;
+
+    public BulkAwareJPAQueryFactory(EntityManager em, ObjectProvider<BulkClauseListener> listeners,
+                                    ObjectProvider<QueryMetrics> metrics, ObjectProvider<ReplicaReads> replicaReads) {
+        super(em);
+        this.em = em;
+        this.listeners = listeners;
+        this.metrics = metrics;
+        this.replicaReads = replicaReads;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        QueryMetrics queryMetrics = metrics.getIfAvailable();
+        ReplicaReads replicas = replicaReads.getIfAvailable();
+        if (queryMetrics != null) {
+            return new InstrumentedJPAQuery<Void>(em, queryMetrics, replicas);
+        }
+        if (replicas != null) {
+            return new ReplicaAwareJPAQuery<Void>(em, replicas);
+        }
+        return super.query();
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new ListeningUpdateClause(path);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new ListeningDeleteClause(path);
+    }
+
+    private long execute(BulkClauseEvent event, LongSupplier execution) {
+        listeners.orderedStream().forEach(listener -> listener.beforeExecute(event));
+        long affectedRows = execution.getAsLong();
+        listeners.orderedStream().forEach(listener -> listener.afterExecute(event, affectedRows));
+        return affectedRows;
+    }
+
+    private class ListeningUpdateClause extends JPAUpdateClause {
+        private final EntityPath<?> entity;
+        private final Set<Path<?>> updatedPaths = new LinkedHashSet<>();
+        private final BooleanBuilder where = new BooleanBuilder();
+
+        ListeningUpdateClause(EntityPath<?> entity) {
+            super(em, entity);
+            this.entity = entity;
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, T value) {
+            updatedPaths.add(path);
+            return super.set(path, value);
+        }
+
+        @Override
+        public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+            updatedPaths.add(path);
+            return super.set(path, expression);
+        }
+
+        @Override
+        public <T> JPAUpdateClause setNull(Path<T> path) {
+            updatedPaths.add(path);
+            return super.setNull(path);
+        }
+
+        @Override
+        public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+            updatedPaths.addAll(paths);
+            return super.set(paths, values);
+        }
+
+        @Override
+        public JPAUpdateClause where(Predicate... o) {
+            for (Predicate predicate : o) {
+                where.and(predicate);
+            }
+            return super.where(o);
+        }
+
+        @Override
+        public long execute() {
+            BulkClauseEvent event = new BulkClauseEvent(BulkClauseEvent.Type.UPDATE, entity,
+                    Collections.unmodifiableSet(new LinkedHashSet<>(updatedPaths)), where.getValue());
+            return BulkAwareJPAQueryFactory.this.execute(event, super::execute);
+        }
+    }
+
+    private class ListeningDeleteClause extends JPADeleteClause {
+        private final EntityPath<?> entity;
+        private final BooleanBuilder where = new BooleanBuilder();
+
+        ListeningDeleteClause(EntityPath<?> entity) {
+            super(em, entity);
+            this.entity = entity;
+        }
+
+        @Override
+        public JPADeleteClause where(Predicate... o) {
+            for (Predicate predicate : o) {
+                where.and(predicate);
+            }
+            return super.where(o);
+        }
+
+        @Override
+        public long execute() {
+            BulkClauseEvent event = new BulkClauseEvent(BulkClauseEvent.Type.DELETE, entity,
+                    Collections.<Path<?>>emptySet(), where.getValue());
+            return BulkAwareJPAQueryFactory.this.execute(event, super::execute);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * 영속성 컨텍스트를 거치지 않고 실행되는 Querydsl update/delete 절의 정보
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkClauseEvent {
+    public enum Type {
+        UPDATE,
+        DELETE
+    }
+
+    private final Type type;
+    private final EntityPath<?> entity;
+    /**
+     * update 절에서 값을 바꾸는 path. delete 는 비어있다.
+     */
+    private final Set<Path<?>> updatedPaths;
+    /**
+     * where 조건이 없으면 null
+     */
+    private final Predicate where;
+
+    public boolean isDelete() {
+        return type == Type.DELETE;
+    }
+
+    public boolean targets(Class<?> entityType) {
+        return entity.getType().equals(entityType);
+    }
+
+    /**
+     * root 엔티티의 property 를 바꾸는 update 인지 (alias 와 상관없이 property 이름으로 비교)
+     */
+    public boolean updates(String property) {
+        for (Path<?> path : updatedPaths) {
+            if (path.getMetadata().getName().equals(property)
+                    && path.getMetadata().getParent() != null
+                    && path.getMetadata().getParent().getMetadata().isRoot()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package juon.querydsl.query;
+
+/**
+ * BulkAwareJPAQueryFactory 로 만든 update/delete 절이 실행되기 전후에 호출된다.
+ * 캐시나 집계처럼 엔티티 이벤트로 유지하는 상태를 bulk 연산에도 맞추기 위해 사용한다.
+ */
+public interface BulkClauseListener {
+    default void beforeExecute(BulkClauseEvent event) {
+    }
+
+    void afterExecute(BulkClauseEvent event, long affectedRows);
+}
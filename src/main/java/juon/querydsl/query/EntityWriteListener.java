@@ -0,0 +1,57 @@
+package juon.querydsl.query;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * flush 시점의 엔티티 insert/update/delete 를 받는 hibernate listener.
+ * BulkClauseListener 와 같이 써서 캐시나 집계처럼 엔티티 변경으로 유지하는 상태를 맞춘다.
+ * 필요한 이벤트만 override 하고 register 로 session factory 에 등록한다.
+ */
+public abstract class EntityWriteListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public void register(EntityManagerFactory emf) {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+    }
+
+    /**
+     * 커밋 전 flush 시점에 처리한다. (커밋 여부는 각 listener 가 TransactionSynchronization 으로 판단)
+     */
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    protected static int propertyIndex(EntityPersister persister, String property) {
+        return Arrays.asList(persister.getPropertyNames()).indexOf(property);
+    }
+}
@@ -0,0 +1,54 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * FastProjections 가 만든 projection. row 마다 캐시된 invoker(Function) 한 번만 호출한다.
+ */
+public class FastProjection<T> extends FactoryExpressionBase<T> {
+    private final List<Expression<?>> args;
+    private final Function<Object[], T> rowFactory;
+
+    FastProjection(Class<? extends T> type, List<Expression<?>> args, Function<Object[], T> rowFactory) {
+        super(type);
+        this.args = Collections.unmodifiableList(args);
+        this.rowFactory = rowFactory;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... row) {
+        return rowFactory.apply(row);
+    }
+
+    Function<Object[], T> rowFactory() {
+        return rowFactory;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FastProjection)) {
+            return false;
+        }
+        FastProjection<?> other = (FastProjection<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.args);
+    }
+}
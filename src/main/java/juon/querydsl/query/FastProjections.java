@@ -0,0 +1,235 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / fields / constructor 와 같은 방식으로 쓰되, 리플렉션 대신
+ * 대상 클래스 + 표현식 목록별로 한 번 만든 invoker 를 캐시해서 row 마다 호출한다.
+ * - 기본 생성자, public setter : LambdaMetafactory 로 만든 Supplier / BiConsumer
+ * - 필드 : MethodHandle (setter 가 없는 private 필드)
+ * - 생성자 : 인자를 펼치는 MethodHandle
+ *
+ * 이름은 Path 이름 또는 as("name") 별칭을 쓴다. Projections.bean 처럼 null 값은 set 하지 않는다.
+ * 생성자의 primitive 인자에 null 이 오면 (빈 그룹의 min/max 등) Projections.constructor 처럼 기본값(0, false)을 넘긴다.
+ */
+public final class FastProjections {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ConcurrentMap<List<Object>, Function<Object[], ?>> ROW_FACTORIES = new ConcurrentHashMap<>();
+
+    private enum Kind { BEAN, FIELDS, CONSTRUCTOR }
+
+    private FastProjections() {
+    }
+
+    public static <T> FastProjection<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return create(Kind.BEAN, type, exprs);
+    }
+
+    public static <T> FastProjection<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return create(Kind.FIELDS, type, exprs);
+    }
+
+    public static <T> FastProjection<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+        return create(Kind.CONSTRUCTOR, type, exprs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> FastProjection<T> create(Kind kind, Class<? extends T> type, Expression<?>... exprs) {
+        List<Object> key = new ArrayList<>(exprs.length + 2);
+        key.add(kind);
+        key.add(type);
+        for (Expression<?> expr : exprs) {
+            key.add(kind == Kind.CONSTRUCTOR ? expr.getType() : propertyName(expr));
+        }
+        Function<Object[], T> rowFactory = (Function<Object[], T>) ROW_FACTORIES.computeIfAbsent(key,
+                k -> kind == Kind.CONSTRUCTOR ? constructorFactory(type, exprs) : beanFactory(kind, type, exprs));
+        return new FastProjection<>(type, Arrays.asList(exprs), rowFactory);
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            return ((Path<?>) ((Operation<?>) expr).getArg(1)).getMetadata().getName();
+        }
+        throw new IllegalArgumentException("이름을 알 수 없는 표현식입니다. as(\"name\") 으로 별칭을 지정하세요: " + expr);
+    }
+
+    private static <T> Function<Object[], T> beanFactory(Kind kind, Class<? extends T> type, Expression<?>[] exprs) {
+        Supplier<Object> instantiator = instantiator(type);
+        @SuppressWarnings("unchecked")
+        BiConsumer<Object, Object>[] setters = new BiConsumer[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            String property = propertyName(exprs[i]);
+            setters[i] = kind == Kind.BEAN ? setter(type, property) : fieldSetter(type, property);
+        }
+
+        return row -> {
+            @SuppressWarnings("unchecked")
+            T target = (T) instantiator.get();
+            for (int i = 0; i < setters.length; i++) {
+                if (row[i] != null) {
+                    setters[i].accept(target, row[i]);
+                }
+            }
+            return target;
+        };
+    }
+
+    private static <T> Function<Object[], T> constructorFactory(Class<? extends T> type, Expression<?>[] exprs) {
+        Constructor<?> constructor = findConstructor(type, exprs);
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, exprs.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 생성자에 접근할 수 없습니다.", e);
+        }
+
+        Class<?>[] params = constructor.getParameterTypes();
+        Object[] defaults = new Object[params.length];
+        boolean hasPrimitive = false;
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].isPrimitive()) {
+                defaults[i] = Array.get(Array.newInstance(params[i], 1), 0);
+                hasPrimitive = true;
+            }
+        }
+        boolean fillDefaults = hasPrimitive;
+
+        return row -> {
+            Object[] args = fillDefaults ? withDefaults(row, defaults) : row;
+            try {
+                @SuppressWarnings("unchecked")
+                T created = (T) handle.invokeExact(args);
+                return created;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * null 인 primitive 인자만 기본값으로 바꾼다. 바꿀 것이 없으면 row 를 그대로 쓴다.
+     */
+    private static Object[] withDefaults(Object[] row, Object[] defaults) {
+        Object[] args = row;
+        for (int i = 0; i < defaults.length; i++) {
+            if (row[i] == null && defaults[i] != null) {
+                if (args == row) {
+                    args = row.clone();
+                }
+                args[i] = defaults[i];
+            }
+        }
+        return args;
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, Expression<?>[] exprs) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            Class<?>[] params = constructor.getParameterTypes();
+            if (params.length != exprs.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < params.length && matches; i++) {
+                matches = wrap(params[i]).isAssignableFrom(exprs[i].getType());
+            }
+            if (matches) {
+                return constructor;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 맞는 public 생성자가 없습니다.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> instantiator(Class<?> type) {
+        try {
+            MethodHandle constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + " 에 public 기본 생성자가 없습니다.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(Class<?> type, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(name) || method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        LOOKUP.unreflect(method),
+                        MethodType.methodType(void.class, type, wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(type.getName() + "." + name + " 를 호출할 수 없습니다.", e);
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + property + " setter 가 없습니다.");
+    }
+
+    private static BiConsumer<Object, Object> fieldSetter(Class<?> type, String property) {
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(property);
+                field.setAccessible(true);
+                MethodHandle handle = LOOKUP.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                return (target, value) -> {
+                    try {
+                        handle.invokeExact(target, value);
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+            } catch (NoSuchFieldException e) {
+                // 상위 클래스에서 찾는다
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + "." + property + " 필드에 접근할 수 없습니다.", e);
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + property + " 필드가 없습니다.");
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
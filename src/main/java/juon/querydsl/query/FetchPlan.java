@@ -0,0 +1,32 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 조회마다 고를 수 있는 fetch 계획. 엔티티에 선언한 @NamedEntityGraph 를 fetchgraph 힌트로 건다.
+ *
+ * FetchPlan.MEMBER_WITH_TEAM.applyTo(factory.selectFrom(member), em).fetch();
+ *
+ * 컬렉션(TEAM_WITH_MEMBERS)을 페이징과 같이 쓰면 hibernate 가 메모리에서 페이징하므로,
+ * 이 경우는 계획 없이 조회하고 default_batch_fetch_size 로 in (...) 조회되게 둔다.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum FetchPlan {
+    MEMBER_WITH_TEAM(Member.WITH_TEAM),
+    TEAM_WITH_MEMBERS(Team.WITH_MEMBERS);
+
+    public static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
+    private final String graphName;
+
+    public <T, Q extends AbstractJPAQuery<T, Q>> Q applyTo(Q query, EntityManager em) {
+        return query.setHint(FETCH_GRAPH, em.getEntityGraph(graphName));
+    }
+}
@@ -0,0 +1,52 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+import juon.querydsl.routing.ReplicaReads;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * fetch 계열 메서드 실행을 QueryMetrics 에 기록하는 JPAQuery.
+ * setHint(QueryMetrics.NAME, "...") 은 JPA 힌트로 넘기지 않고 쿼리 이름으로만 쓴다.
+ * iterate/stream 은 row 수를 알 수 없어서 기록하지 않는다.
+ */
+public class InstrumentedJPAQuery<T> extends ReplicaAwareJPAQuery<T> {
+    private final QueryMetrics metrics;
+    private String name;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics metrics, ReplicaReads replicaReads) {
+        super(em, replicaReads);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public JPAQuery<T> setHint(String name, Object value) {
+        if (QueryMetrics.NAME.equals(name)) {
+            this.name = String.valueOf(value);
+            return this;
+        }
+        return super.setHint(name, value);
+    }
+
+    @Override
+    public List<T> fetch() {
+        return metrics.record(name, super::fetch, List::size);
+    }
+
+    @Override
+    public T fetchOne() {
+        return metrics.record(name, super::fetchOne, result -> result == null ? 0 : 1);
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        return metrics.record(name, super::fetchResults, results -> results.getResults().size());
+    }
+
+    @Override
+    public long fetchCount() {
+        return metrics.record(name, super::fetchCount, count -> 1);
+    }
+}
@@ -0,0 +1,78 @@
+package juon.querydsl.query;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * count/sum/min/max 부분 결과. 파티션끼리 merge 해서 전체 결과를 만든다.
+ * avg 는 파티션별 avg 를 평균내면 틀리므로 합친 sum/count 로 계산한다.
+ * count 는 값이 null 이 아닌 row 수(count(value))라서 avg 의 분모와 같다.
+ */
+@Getter
+public class NumericAggregate {
+    public static final NumericAggregate EMPTY = new NumericAggregate(0, null, null, null);
+
+    private final long count;
+    private final Number sum;
+    private final Number min;
+    private final Number max;
+
+    public NumericAggregate(long count, Number sum, Number min, Number max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public Double getAvg() {
+        return count == 0 ? null : sum.doubleValue() / count;
+    }
+
+    public NumericAggregate merge(NumericAggregate other) {
+        return new NumericAggregate(count + other.count,
+                add(sum, other.sum),
+                pick(min, other.min, -1),
+                pick(max, other.max, 1));
+    }
+
+    /**
+     * JPQL sum 의 결과 타입(정수 -> Long, 실수 -> Double, BigDecimal -> BigDecimal)을 그대로 유지한다.
+     */
+    private static Number add(Number a, Number b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        if (a instanceof BigDecimal || b instanceof BigDecimal) {
+            return decimal(a).add(decimal(b));
+        }
+        if (a instanceof BigInteger || b instanceof BigInteger) {
+            return new BigInteger(a.toString()).add(new BigInteger(b.toString()));
+        }
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+            return a.doubleValue() + b.doubleValue();
+        }
+        return a.longValue() + b.longValue();
+    }
+
+    /**
+     * 빈 파티션의 min/max 는 null 이므로 null 이 아닌 쪽을 고른다.
+     * sign 이 -1 이면 작은 값, 1 이면 큰 값
+     */
+    private static Number pick(Number a, Number b, int sign) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return Integer.signum(decimal(a).compareTo(decimal(b))) == -sign ? b : a;
+    }
+
+    private static BigDecimal decimal(Number number) {
+        return number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " sum=" + sum + " avg=" + getAvg() + " min=" + min + " max=" + max;
+    }
+}
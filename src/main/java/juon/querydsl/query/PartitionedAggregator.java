@@ -0,0 +1,132 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 테이블 전체에 대한 count/sum/avg/min/max 를 id 범위 파티션으로 나눠서 fork-join 풀에서 병렬로 실행한다.
+ *
+ * NumericAggregate ages = aggregator.aggregate(member.id, member.age, member.team().name.eq("teamA"));
+ *
+ * 파티션마다 별도 읽기 전용 트랜잭션(= 별도 커넥션, EntityManager)이므로
+ * - parallelism 은 커넥션 풀 크기(spring.datasource.hikari.maximum-pool-size) 이하로 둔다
+ * - 호출한 쪽 트랜잭션의 커밋 전 변경은 보이지 않고, 파티션끼리 같은 시점을 본다는 보장도 없다
+ * parallelism 이 0 이면 CPU 코어 수를 쓴다.
+ */
+@Component
+public class PartitionedAggregator implements Closeable {
+    private final JPAQueryFactory factory;
+    private final TransactionTemplate tx;
+    private final ForkJoinPool pool;
+
+    public PartitionedAggregator(JPAQueryFactory factory, PlatformTransactionManager transactionManager,
+                                 @Value("${query.partitioned.parallelism:0}") int parallelism) {
+        this.factory = factory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tx.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public NumericAggregate aggregate(NumberPath<Long> id, NumberExpression<?> value, Predicate... where) {
+        EntityPath<?> from = (EntityPath<?>) id.getRoot();
+        Tuple range = tx.execute(status -> factory
+                .select(id.min(), id.max())
+                .from(from)
+                .where(where)
+                .fetchOne());
+        Long minId = range.get(id.min());
+        Long maxId = range.get(id.max());
+        if (minId == null) {
+            return NumericAggregate.EMPTY;
+        }
+
+        long width = Math.max(1, (maxId - minId + 1) / pool.getParallelism());
+        return pool.invoke(new Partition(from, id, value, where, minId, maxId + 1, width));
+    }
+
+    /**
+     * [fromId, toId) 범위. width 보다 넓으면 반으로 나눠서 fork 한다.
+     */
+    private class Partition extends RecursiveTask<NumericAggregate> {
+        private final EntityPath<?> from;
+        private final NumberPath<Long> id;
+        private final NumberExpression<?> value;
+        private final Predicate[] where;
+        private final long fromId;
+        private final long toId;
+        private final long width;
+
+        Partition(EntityPath<?> from, NumberPath<Long> id, NumberExpression<?> value, Predicate[] where,
+                  long fromId, long toId, long width) {
+            this.from = from;
+            this.id = id;
+            this.value = value;
+            this.where = where;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.width = width;
+        }
+
+        @Override
+        protected NumericAggregate compute() {
+            if (toId - fromId > width) {
+                long middle = fromId + (toId - fromId) / 2;
+                Partition left = new Partition(from, id, value, where, fromId, middle, width);
+                Partition right = new Partition(from, id, value, where, middle, toId, width);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+
+            Tuple tuple = tx.execute(status -> factory
+                    .select(value.count(), sumOf(value), value.min(), value.max())
+                    .from(from)
+                    .where(where)
+                    .where(id.goe(fromId), id.lt(toId))
+                    .fetchOne());
+            return new NumericAggregate(tuple.get(0, Long.class),
+                    tuple.get(1, Number.class),
+                    tuple.get(2, Number.class),
+                    tuple.get(3, Number.class));
+        }
+    }
+
+    /**
+     * value.sum() 은 Tuple 에서 value 의 타입(Integer 등)으로 변환되어 큰 테이블에서 넘칠 수 있다.
+     * JPA 스펙의 sum 결과 타입(정수 -> Long, 실수 -> Double)으로 지정해서 조회한다.
+     */
+    private static NumberExpression<?> sumOf(NumberExpression<?> value) {
+        Class<?> type = value.getType();
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return Expressions.numberOperation(Long.class, Ops.AggOps.SUM_AGG, value);
+        }
+        if (type == Float.class || type == Double.class) {
+            return Expressions.numberOperation(Double.class, Ops.AggOps.SUM_AGG, value);
+        }
+        return value.sum();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
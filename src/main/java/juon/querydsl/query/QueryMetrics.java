@@ -0,0 +1,138 @@
+package juon.querydsl.query;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Querydsl 조회를 쿼리 이름별로 micrometer 에 기록한다. (query.metrics.enabled=true 일 때만 등록)
+ * - querydsl.query : 실행 시간 (p50/p99, histogram)
+ * - querydsl.query.rows : 반환 row 수
+ * - querydsl.query.statements : 조회 중 실행된 SQL 수 (auto flush 포함)
+ * - querydsl.query.lazy.statements : 조회가 끝난 뒤 같은 스레드에서 다음 조회/트랜잭션 커밋 전까지 실행된 SQL 수 (lazy 로딩)
+ *
+ * 이름은 setHint(QueryMetrics.NAME, "...") 으로 주고, 없으면 호출한 클래스.메서드 를 쓴다.
+ * lazy 구간에는 그 사이 실행된 다른 SQL(em.find 등)도 포함된다.
+ */
+@Component
+@ConditionalOnProperty(name = "query.metrics.enabled", havingValue = "true")
+public class QueryMetrics {
+    public static final String NAME = "juon.query.name";
+    private static final String TAG = "name";
+    private static final String[] SKIP_PACKAGES = {
+            "com.querydsl.", "java.", "javax.", "sun.", "jdk.", "org.springframework.", "org.hibernate."
+    };
+    private static final String[] SKIP_CLASSES = {
+            QueryMetrics.class.getName(), InstrumentedJPAQuery.class.getName(), BulkAwareJPAQueryFactory.class.getName()
+    };
+
+    private final MeterRegistry registry;
+    private final SqlStatementCounter statements;
+    private final ThreadLocal<LazyWindow> lazyWindow = new ThreadLocal<>();
+
+    public QueryMetrics(MeterRegistry registry, SqlStatementCounter statements) {
+        this.registry = registry;
+        this.statements = statements;
+    }
+
+    public <R> R record(String name, Supplier<R> fetch, ToLongFunction<R> rows) {
+        closeLazyWindow();
+        String queryName = name != null ? name : callSite();
+
+        long statementsBefore = statements.current();
+        long start = System.nanoTime();
+        R result = fetch.get();
+        long elapsed = System.nanoTime() - start;
+        long statementsAfter = statements.current();
+
+        Timer.builder("querydsl.query")
+                .tag(TAG, queryName)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        summary("querydsl.query.rows", queryName).record(rows.applyAsLong(result));
+        summary("querydsl.query.statements", queryName).record(statementsAfter - statementsBefore);
+
+        openLazyWindow(queryName, statementsAfter);
+        return result;
+    }
+
+    private DistributionSummary summary(String meter, String queryName) {
+        return DistributionSummary.builder(meter)
+                .tag(TAG, queryName)
+                .register(registry);
+    }
+
+    private void openLazyWindow(String queryName, long statementsAfter) {
+        lazyWindow.set(new LazyWindow(queryName, statementsAfter));
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // 커밋 시 flush 되는 문장은 lazy 로딩이 아니므로 flush 전에 닫는다
+                @Override
+                public void beforeCompletion() {
+                    closeLazyWindow();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    closeLazyWindow();
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryMetrics.this);
+                }
+            });
+        }
+    }
+
+    private void closeLazyWindow() {
+        LazyWindow window = lazyWindow.get();
+        if (window == null) {
+            return;
+        }
+        lazyWindow.remove();
+        summary("querydsl.query.lazy.statements", window.queryName).record(statements.current() - window.statementsAfter);
+    }
+
+    private static String callSite() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (!skipped(className) && !className.contains("$$")) {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+
+    private static boolean skipped(String className) {
+        for (String prefix : SKIP_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String skip : SKIP_CLASSES) {
+            if (className.equals(skip) || className.startsWith(skip + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class LazyWindow {
+        private final String queryName;
+        private final long statementsAfter;
+
+        LazyWindow(String queryName, long statementsAfter) {
+            this.queryName = queryName;
+            this.statementsAfter = statementsAfter;
+        }
+    }
+}
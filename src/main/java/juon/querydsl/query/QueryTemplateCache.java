@@ -0,0 +1,261 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.SubQueryExpressionImpl;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BooleanBuilder / where 파라미터로 만든 동적 쿼리는 실행할 때마다 JPQL 로 다시 직렬화된다.
+ * 조건값은 매번 달라도 조건의 모양은 몇 가지뿐이므로, 상수를 파라미터로 바꾼 쿼리 구조를 key 로
+ * 직렬화된 JPQL 을 재사용하고 파라미터만 다시 바인딩한다.
+ *
+ * 줄어드는 것은 JPQL 직렬화(JPQLSerializer) 비용뿐이다.
+ * Querydsl 도 상수를 ?1, ?2 로 바인딩하므로 hibernate query plan cache 는 이 클래스가 없어도 재사용된다.
+ * hit 여도 metadata.clone(), 상수를 바꾸는 ReplaceVisitor 한 번, key(QueryMetadata)의 hashCode/equals 는 매번 든다.
+ * (QueryTemplateBenchmark 참고. 조건이 적은 쿼리는 차이가 거의 없다)
+ *
+ * like 계열(startsWith/contains/endsWith/like)의 상수는 %, _ 를 escape 하고 % 를 붙인 값으로 바꿔서
+ * "like ?1 escape '!'" 모양으로 만든다. 검색어가 달라도 같은 template 이다.
+ * 직렬화할 때 상수여야 하는 자리(Class 상수 - castToNum/instanceOf, 비어 있는 in(), matches)는 상수로 둔다.
+ *
+ * JPAQuery 에 설정한 hint, lock mode 는 적용되지 않는다.
+ */
+@Component
+public class QueryTemplateCache {
+    @PersistenceContext
+    EntityManager em;
+
+    private final Map<QueryMetadata, Template> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public QueryTemplateCache(@Value("${query.template-cache.max-size:256}") int maxSize) {
+        this.templates = new LinkedHashMap<QueryMetadata, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryMetadata, Template> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+
+        // limit/offset 은 JPQL 에 포함되지 않으므로 key 에서 제외하고,
+        // select 절의 상수는 파라미터로 바꿀 수 없으므로(hibernate 제약) 그대로 둔다.
+        QueryMetadata shape = metadata.clone();
+        shape.setModifiers(QueryModifiers.EMPTY);
+        shape.setProjection(null);
+
+        Map<ParamExpression<?>, Object> params = new HashMap<>(metadata.getParams());
+        SubQueryExpression<?> parameterized = (SubQueryExpression<?>) new SubQueryExpressionImpl<>(Object.class, shape)
+                .accept(new ConstantToParam(), params);
+        QueryMetadata key = parameterized.getMetadata();
+        key.setProjection(metadata.getProjection());
+
+        Template template = get(key);
+        if (template == null) {
+            template = serialize(key);
+            put(key, template);
+        }
+
+        Query jpaQuery = em.createQuery(template.jpql);
+        JPAUtil.setConstants(jpaQuery, template.constants, params);
+
+        QueryModifiers modifiers = metadata.getModifiers();
+        if (modifiers.getLimitAsInteger() != null) {
+            jpaQuery.setMaxResults(modifiers.getLimitAsInteger());
+        }
+        if (modifiers.getOffsetAsInteger() != null) {
+            jpaQuery.setFirstResult(modifiers.getOffsetAsInteger());
+        }
+
+        List<?> rows = jpaQuery.getResultList();
+        Expression<?> projection = metadata.getProjection();
+        if (!(projection instanceof FactoryExpression)) {
+            return (List<T>) rows;
+        }
+
+        FactoryExpression<T> factory = FactoryExpressionUtils.wrap((FactoryExpression<T>) projection);
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(row instanceof Object[] ? factory.newInstance((Object[]) row) : factory.newInstance(row));
+        }
+        return result;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    private synchronized Template get(QueryMetadata key) {
+        Template template = templates.get(key);
+        if (template == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return template;
+    }
+
+    private synchronized void put(QueryMetadata key, Template template) {
+        templates.put(key, template);
+    }
+
+    private Template serialize(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+        return new Template(serializer.toString(), new ArrayList<>(serializer.getConstants()));
+    }
+
+    /**
+     * 상수를 등장 순서대로 p0, p1 ... 이름의 Param 으로 바꾸고 값을 params 에 담는다.
+     */
+    private static class ConstantToParam extends ReplaceVisitor<Map<ParamExpression<?>, Object>> {
+        private static final char ESCAPE = '!';
+        private static final Map<Operator, Operator> LIKE_OPERATORS = new HashMap<>();
+
+        static {
+            LIKE_OPERATORS.put(Ops.LIKE, Ops.LIKE_ESCAPE);
+            LIKE_OPERATORS.put(Ops.LIKE_IC, Ops.LIKE_ESCAPE_IC);
+            LIKE_OPERATORS.put(Ops.STARTS_WITH, Ops.LIKE_ESCAPE);
+            LIKE_OPERATORS.put(Ops.STARTS_WITH_IC, Ops.LIKE_ESCAPE_IC);
+            LIKE_OPERATORS.put(Ops.ENDS_WITH, Ops.LIKE_ESCAPE);
+            LIKE_OPERATORS.put(Ops.ENDS_WITH_IC, Ops.LIKE_ESCAPE_IC);
+            LIKE_OPERATORS.put(Ops.STRING_CONTAINS, Ops.LIKE_ESCAPE);
+            LIKE_OPERATORS.put(Ops.STRING_CONTAINS_IC, Ops.LIKE_ESCAPE_IC);
+        }
+
+        private int index;
+
+        @Override
+        public Expression<?> visit(Operation<?> expr, Map<ParamExpression<?>, Object> params) {
+            Operator operator = expr.getOperator();
+            if (LIKE_OPERATORS.containsKey(operator) && isString(expr.getArg(1))) {
+                return likePattern(expr, params);
+            }
+            if ((operator == Ops.IN || operator == Ops.NOT_IN) && isEmptyCollection(expr.getArg(1))) {
+                // JPQLSerializer 가 상수일 때만 1 = 2 로 바꾼다
+                return expr;
+            }
+            if (operator == Ops.MATCHES || operator == Ops.MATCHES_IC || operator == Ops.LIKE_ESCAPE
+                    || operator == Ops.LIKE_ESCAPE_IC) {
+                // 정규식 -> like 변환, escape 문자는 상수여야 직렬화된다
+                return expr;
+            }
+            return super.visit(expr, params);
+        }
+
+        @Override
+        public Expression<?> visit(Constant<?> expr, Map<ParamExpression<?>, Object> params) {
+            if (expr.getConstant() instanceof Class) {
+                // castToNum, instanceOf 의 대상 타입
+                return expr;
+            }
+            return param(expr.getType(), expr.getConstant(), params);
+        }
+
+        /**
+         * Querydsl 이 상수에 하는 것과 같이 escape 하고 % 를 붙인 값을 Param 으로 넘긴다.
+         * like() 는 사용자가 준 pattern 이므로 escape 문자만 두 번 쓴다.
+         */
+        private Expression<?> likePattern(Operation<?> expr, Map<ParamExpression<?>, Object> params) {
+            Operator operator = expr.getOperator();
+            String value = (String) ((Constant<?>) expr.getArg(1)).getConstant();
+            String pattern;
+            if (operator == Ops.LIKE || operator == Ops.LIKE_IC) {
+                pattern = value.replace(String.valueOf(ESCAPE), String.valueOf(ESCAPE) + ESCAPE);
+            } else if (operator == Ops.STARTS_WITH || operator == Ops.STARTS_WITH_IC) {
+                pattern = escape(value) + "%";
+            } else if (operator == Ops.ENDS_WITH || operator == Ops.ENDS_WITH_IC) {
+                pattern = "%" + escape(value);
+            } else {
+                pattern = "%" + escape(value) + "%";
+            }
+            return ExpressionUtils.predicate(LIKE_OPERATORS.get(operator),
+                    expr.getArg(0).accept(this, params),
+                    param(String.class, pattern, params),
+                    ConstantImpl.create(ESCAPE));
+        }
+
+        private Param<?> param(Class<?> type, Object value, Map<ParamExpression<?>, Object> params) {
+            Param<?> param = new Param<>(type, "p" + index++);
+            params.put(param, value);
+            return param;
+        }
+
+        private static String escape(String value) {
+            StringBuilder escaped = new StringBuilder(value.length() + 4);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '%' || c == '_' || c == ESCAPE) {
+                    escaped.append(ESCAPE);
+                }
+                escaped.append(c);
+            }
+            return escaped.toString();
+        }
+
+        private static boolean isString(Expression<?> expr) {
+            return expr instanceof Constant && ((Constant<?>) expr).getConstant() instanceof String;
+        }
+
+        private static boolean isEmptyCollection(Expression<?> expr) {
+            return expr instanceof Constant && ((Constant<?>) expr).getConstant() instanceof Collection
+                    && ((Collection<?>) ((Constant<?>) expr).getConstant()).isEmpty();
+        }
+    }
+
+    private static class Template {
+        private final String jpql;
+        private final List<Object> constants;
+
+        Template(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+    }
+}
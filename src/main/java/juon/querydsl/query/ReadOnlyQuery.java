@@ -0,0 +1,28 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+
+/**
+ * 화면에 보여주기만 할 엔티티 조회용.
+ * - read-only 로 로딩 : 스냅샷(loadedState)을 만들지 않고 flush 때 dirty checking 대상에서 빠진다
+ * - flush mode MANUAL : 이 쿼리 전에 auto flush 를 하지 않는다
+ *
+ * ReadOnlyQuery.of(factory.selectFrom(member)).where(...).fetch();
+ *
+ * @Transactional(readOnly = true) 안에서는 스프링(HibernateJpaDialect)이 세션 전체를
+ * defaultReadOnly + FlushMode.MANUAL 로 바꾸므로 따로 지정하지 않아도 된다.
+ * read-only 엔티티를 수정해도 DB 에 반영되지 않는다.
+ */
+public final class ReadOnlyQuery {
+
+    private ReadOnlyQuery() {
+    }
+
+    public static <T, Q extends AbstractJPAQuery<T, Q>> Q of(Q query) {
+        return query
+                .setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
@@ -0,0 +1,55 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+import juon.querydsl.routing.ReplicaReads;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * setHint(ReplicaReads.HINT, true) 이면 fetch 계열 메서드를 ReplicaReads 로 replica 에서 실행한다.
+ * ReplicaReads 가 없으면(datasource.routing.enabled=false) 힌트를 무시하고 그대로 실행한다.
+ */
+public class ReplicaAwareJPAQuery<T> extends JPAQuery<T> {
+    private final ReplicaReads replicaReads;
+    private boolean replica;
+
+    public ReplicaAwareJPAQuery(EntityManager em, ReplicaReads replicaReads) {
+        super(em);
+        this.replicaReads = replicaReads;
+    }
+
+    @Override
+    public JPAQuery<T> setHint(String name, Object value) {
+        if (ReplicaReads.HINT.equals(name)) {
+            this.replica = Boolean.TRUE.equals(value) || "true".equals(value);
+            return this;
+        }
+        return super.setHint(name, value);
+    }
+
+    @Override
+    public List<T> fetch() {
+        return onReplica() ? replicaReads.execute(super::fetch) : super.fetch();
+    }
+
+    @Override
+    public T fetchOne() {
+        return onReplica() ? replicaReads.execute(super::fetchOne) : super.fetchOne();
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        return onReplica() ? replicaReads.execute(super::fetchResults) : super.fetchResults();
+    }
+
+    @Override
+    public long fetchCount() {
+        return onReplica() ? replicaReads.execute(super::fetchCount) : super.fetchCount();
+    }
+
+    private boolean onReplica() {
+        return replica && replicaReads != null;
+    }
+}
@@ -0,0 +1,70 @@
+package juon.querydsl.query;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * hibernate 가 준비(prepare)하는 SQL 문장 수를 스레드별, 종류(select/insert/update/delete)별로 센다. (lazy 로딩, flush 포함)
+ * StatementInspector 는 PreparedStatement 를 만들 때 한 번 불리므로 실행 횟수가 아니다.
+ * hibernate.jdbc.batch_size 로 묶인 insert/update/delete 는 N 건이 실행되어도 1개로 센다. (select 와 묶이지 않은 쓰기는 실행 횟수와 같다)
+ * 값은 계속 증가하기만 하므로 전후 값의 차이로 구간 안에서 준비된 문장 수를 구한다.
+ *
+ * beginTracking ~ endTracking 사이에는 같은 모양의 SQL 이 몇 번 실행됐는지도 센다. (N+1 탐지용)
+ * in (?, ?, ...) 은 파라미터 수와 상관없이 같은 모양으로 본다.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[StatementType.values().length]);
+    private final ThreadLocal<Map<String, Integer>> shapes = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        counts.get()[StatementType.of(sql).ordinal()]++;
+        Map<String, Integer> tracked = shapes.get();
+        if (tracked != null) {
+            tracked.merge(IN_LIST.matcher(sql).replaceAll("(?)"), 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    public long current() {
+        long total = 0;
+        for (long count : counts.get()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public StatementCounts snapshot() {
+        return StatementCounts.of(counts.get());
+    }
+
+    /**
+     * 현재 스레드에서 work 를 실행하는 동안 준비된 SQL 수 (batch 는 1개)
+     */
+    public StatementCounts count(Runnable work) {
+        StatementCounts before = snapshot();
+        work.run();
+        return snapshot().minus(before);
+    }
+
+    public void beginTracking() {
+        shapes.set(new HashMap<>());
+    }
+
+    /**
+     * @return SQL 모양별 실행 횟수
+     */
+    public Map<String, Integer> endTracking() {
+        Map<String, Integer> tracked = shapes.get();
+        shapes.remove();
+        return tracked == null ? Collections.<String, Integer>emptyMap() : tracked;
+    }
+}
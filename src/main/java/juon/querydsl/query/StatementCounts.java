@@ -0,0 +1,42 @@
+package juon.querydsl.query;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class StatementCounts {
+    private final long selects;
+    private final long inserts;
+    private final long updates;
+    private final long deletes;
+    private final long others;
+
+    static StatementCounts of(long[] counts) {
+        return new StatementCounts(
+                counts[StatementType.SELECT.ordinal()],
+                counts[StatementType.INSERT.ordinal()],
+                counts[StatementType.UPDATE.ordinal()],
+                counts[StatementType.DELETE.ordinal()],
+                counts[StatementType.OTHER.ordinal()]);
+    }
+
+    public long total() {
+        return selects + inserts + updates + deletes + others;
+    }
+
+    public StatementCounts minus(StatementCounts before) {
+        return new StatementCounts(
+                selects - before.selects,
+                inserts - before.inserts,
+                updates - before.updates,
+                deletes - before.deletes,
+                others - before.others);
+    }
+
+    @Override
+    public String toString() {
+        return "select=" + selects + " insert=" + inserts + " update=" + updates
+                + " delete=" + deletes + " other=" + others;
+    }
+}
@@ -0,0 +1,51 @@
+package juon.querydsl.query;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 요청마다 나간 SQL 수를 남기고, 한 요청에서 같은 모양의 SQL 이 repeat-threshold 번을 넘으면 경고한다. (N+1 의심)
+ * SqlStatementCounter 기준이라 JDBC batch 로 묶인 쓰기는 1번으로 센다. 반복 insert/update 는 여기서 잡히지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "query.statement-guard.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementGuardFilter extends OncePerRequestFilter {
+    private final SqlStatementCounter counter;
+    private final int repeatThreshold;
+
+    public StatementGuardFilter(SqlStatementCounter counter,
+                                @Value("${query.statement-guard.repeat-threshold:10}") int repeatThreshold) {
+        this.counter = counter;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementCounts before = counter.snapshot();
+        counter.beginTracking();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Map<String, Integer> shapes = counter.endTracking();
+            log.debug("{} {} {}", request.getMethod(), request.getRequestURI(), counter.snapshot().minus(before));
+            for (Map.Entry<String, Integer> shape : shapes.entrySet()) {
+                if (shape.getValue() > repeatThreshold) {
+                    log.warn("{} {} 에서 같은 SQL 이 {}번 실행되었습니다. (N+1 의심) {}",
+                            request.getMethod(), request.getRequestURI(), shape.getValue(), shape.getKey());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package juon.querydsl.query;
+
+import java.util.Locale;
+
+public enum StatementType {
+    SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+    /**
+     * 앞쪽 주석(use_sql_comments)을 건너뛰고 첫 키워드로 구분한다.
+     */
+    public static StatementType of(String sql) {
+        String head = sql.trim();
+        while (head.startsWith("/*")) {
+            int end = head.indexOf("*/");
+            if (end < 0) {
+                return OTHER;
+            }
+            head = head.substring(end + 2).trim();
+        }
+        head = head.toLowerCase(Locale.ROOT);
+        if (head.startsWith("select") || head.startsWith("with")) {
+            return SELECT;
+        }
+        if (head.startsWith("insert")) {
+            return INSERT;
+        }
+        if (head.startsWith("update")) {
+            return UPDATE;
+        }
+        if (head.startsWith("delete")) {
+            return DELETE;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,29 @@
+package juon.querydsl.routing;
+
+import lombok.Getter;
+
+import javax.sql.DataSource;
+
+@Getter
+public class Replica {
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean healthy = true;
+    private volatile double latencyNanos;
+
+    Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    void up(long checkNanos) {
+        latencyNanos = latencyNanos == 0 ? checkNanos : EWMA_WEIGHT * checkNanos + (1 - EWMA_WEIGHT) * latencyNanos;
+        healthy = true;
+    }
+
+    void down() {
+        healthy = false;
+    }
+}
@@ -0,0 +1,32 @@
+package juon.querydsl.routing;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * 쿼리 하나를 replica 에서 실행한다. (setHint(ReplicaReads.HINT, true) 로 지정한 Querydsl 조회)
+ * 이미 읽기 전용 트랜잭션 안이면 그대로, 아니면 새 읽기 전용 트랜잭션에서 실행하므로
+ * 조회된 엔티티는 detach 된 상태로 돌아온다. DTO/집계 같은 리포트성 조회에 쓴다.
+ */
+public class ReplicaReads {
+    public static final String HINT = "juon.replica";
+
+    private final TransactionTemplate readOnly;
+
+    public ReplicaReads(PlatformTransactionManager transactionManager) {
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public <T> T execute(Supplier<T> query) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+        return readOnly.execute(status -> query.get());
+    }
+}
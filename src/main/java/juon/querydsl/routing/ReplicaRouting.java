@@ -0,0 +1,160 @@
+package juon.querydsl.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * primary 와 replica 들 사이에서 커넥션을 고른다.
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))이면 replica, 아니면 primary.
+ *
+ * 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 뒤에 정해지므로, dataSource() 는
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 커넥션을 가져오게 해야 한다.
+ * 정상인 replica 가 없거나 커넥션을 못 얻으면 primary 로 보낸다.
+ */
+@Slf4j
+public class ReplicaRouting implements Closeable {
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final Duration healthCheckTimeout;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final DataSource dataSource = new RoutingDataSource();
+
+    public ReplicaRouting(DataSource primary, List<Replica> replicas, ReplicaSelection selection,
+                          Duration healthCheckInterval, Duration healthCheckTimeout) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.selection = selection;
+        this.healthCheckTimeout = healthCheckTimeout;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.healthChecker.scheduleWithFixedDelay(this::checkHealth,
+                0, healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static Replica replica(String name, DataSource dataSource) {
+        return new Replica(name, dataSource);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            long start = System.nanoTime();
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                if (!connection.isValid((int) Math.max(1, healthCheckTimeout.getSeconds()))) {
+                    throw new SQLException("isValid false");
+                }
+                if (!replica.isHealthy()) {
+                    log.info("replica {} 복구", replica.getName());
+                }
+                replica.up(System.nanoTime() - start);
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /**
+     * 읽기 전용 트랜잭션이 아니면 null (primary)
+     */
+    Replica select() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.isHealthy()) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (selection == ReplicaSelection.LEAST_LATENCY) {
+            Replica fastest = healthy.get(0);
+            for (Replica replica : healthy) {
+                if (replica.getLatencyNanos() < fastest.getLatencyNanos()) {
+                    fastest = replica;
+                }
+            }
+            return fastest;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    private void markDown(Replica replica, Exception cause) {
+        if (replica.isHealthy()) {
+            log.warn("replica {} 를 사용할 수 없어 primary 로 보냅니다: {}", replica.getName(), cause.getMessage());
+        }
+        replica.down();
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            closeQuietly(replica.getDataSource());
+        }
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private class RoutingDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            Replica replica = select();
+            if (replica != null) {
+                try {
+                    return replica.getDataSource().getConnection();
+                } catch (SQLException e) {
+                    markDown(replica, e);
+                }
+            }
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            Replica replica = select();
+            if (replica != null) {
+                try {
+                    return replica.getDataSource().getConnection(username, password);
+                } catch (SQLException e) {
+                    markDown(replica, e);
+                }
+            }
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package juon.querydsl.routing;
+
+public enum ReplicaSelection {
+    /** 정상인 replica 를 차례로 */
+    ROUND_ROBIN,
+    /** health check 응답시간(EWMA)이 가장 짧은 replica */
+    LEAST_LATENCY
+}
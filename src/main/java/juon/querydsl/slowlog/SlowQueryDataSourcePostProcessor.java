@@ -0,0 +1,29 @@
+package juon.querydsl.slowlog;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 빈을 SlowQueryLoggingDataSource 로 감싼다.
+ */
+@Component
+@ConditionalOnProperty(name = "query.slow-log.enabled", havingValue = "true")
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public SlowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof SlowQueryLoggingDataSource)) {
+            return new SlowQueryLoggingDataSource((DataSource) bean, slowQueryLog.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,34 @@
+package juon.querydsl.slowlog;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로그로 남길 SQL 한 건. 바인드 값 문자열 변환은 기록 스레드에서 한다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SlowQueryEntry {
+    public enum Reason { SLOW, SAMPLED }
+
+    private final Reason reason;
+    private final String sql;
+    private final Object[] binds;
+    private final long nanos;
+    /** 조회는 읽은 row 수, 변경은 update count, 알 수 없으면 -1 */
+    private final long rows;
+    private final String thread;
+
+    public long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return reason + " " + millis() + "ms rows=" + rows + " thread=" + thread
+                + " sql=[" + sql + "] binds=" + Arrays.deepToString(binds);
+    }
+}
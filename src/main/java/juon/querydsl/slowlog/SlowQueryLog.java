@@ -0,0 +1,107 @@
+package juon.querydsl.slowlog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * show_sql / org.hibernate.type trace 대신 쓰는 SQL 로그.
+ * threshold 를 넘은 문장과 sample-rate 비율로 뽑은 문장만 남긴다.
+ *
+ * 실행 스레드는 ring buffer 에 넣기만 하고, 문자열 변환과 로그 출력은 기록 스레드가 한다.
+ * 버퍼가 가득 차면 버리고 dropped() 로 센다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "query.slow-log.enabled", havingValue = "true")
+public class SlowQueryLog {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final SlowQueryRingBuffer buffer;
+    private final LongAdder written = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile Consumer<SlowQueryEntry> sink = entry -> log.info("{}", entry);
+
+    public SlowQueryLog(@Value("${query.slow-log.threshold:200ms}") Duration threshold,
+                        @Value("${query.slow-log.sample-rate:0}") double sampleRate,
+                        @Value("${query.slow-log.buffer-size:1024}") int bufferSize) {
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.buffer = new SlowQueryRingBuffer(bufferSize);
+        this.writer = new Thread(this::drain, "slow-query-log");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    /**
+     * 남길 대상이 아니면 바인드 값 배열도 복사하지 않는다.
+     */
+    public void record(String sql, Object[] binds, int bindCount, long nanos, long rows) {
+        SlowQueryEntry.Reason reason;
+        if (nanos >= thresholdNanos) {
+            reason = SlowQueryEntry.Reason.SLOW;
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = SlowQueryEntry.Reason.SAMPLED;
+        } else {
+            return;
+        }
+        buffer.offer(new SlowQueryEntry(reason, sql, Arrays.copyOf(binds, bindCount), nanos, rows, Thread.currentThread().getName()));
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long dropped() {
+        return buffer.dropped();
+    }
+
+    void setSink(Consumer<SlowQueryEntry> sink) {
+        this.sink = sink;
+    }
+
+    private void drain() {
+        while (running) {
+            SlowQueryEntry entry = buffer.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                sink.accept(entry);
+                written.increment();
+            } catch (RuntimeException e) {
+                log.warn("slow query log 기록 실패", e);
+            }
+        }
+        for (SlowQueryEntry entry = buffer.poll(); entry != null; entry = buffer.poll()) {
+            sink.accept(entry);
+            written.increment();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package juon.querydsl.slowlog;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connection / Statement / ResultSet 을 감싸서 실행 시간, 바인드 값, row 수를 SlowQueryLog 에 넘긴다.
+ * 조회는 ResultSet 을 닫을 때(읽는 시간 포함), 변경은 execute 가 끝났을 때 기록한다.
+ * 바인드 값은 참조만 배열에 모아두고, 로그로 남길 때만 복사/문자열 변환한다.
+ * executeBatch 는 마지막으로 바인드된 값과 전체 update count 합계를 남긴다.
+ */
+public class SlowQueryLoggingDataSource extends DelegatingDataSource {
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryLoggingDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default:
+                    return result;
+            }
+        });
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private Object[] binds = new Object[8];
+        private int bindCount;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                long start = System.nanoTime();
+                Object result = SlowQueryLoggingDataSource.invoke(target, method, args);
+                long elapsed = System.nanoTime() - start;
+                if (result instanceof ResultSet) {
+                    return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, executed, binds, bindCount, elapsed));
+                }
+                slowQueryLog.record(executed, binds, bindCount, elapsed, updateCount(result));
+                return result;
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                binds = new Object[binds.length];
+                bindCount = 0;
+            }
+            return SlowQueryLoggingDataSource.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (index > binds.length) {
+                Object[] grown = new Object[Math.max(index, binds.length * 2)];
+                System.arraycopy(binds, 0, grown, 0, binds.length);
+                binds = grown;
+            }
+            binds[index - 1] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String sql;
+        private final Object[] binds;
+        private final int bindCount;
+        private long nanos;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, String sql, Object[] binds, int bindCount, long executeNanos) {
+            this.target = target;
+            this.sql = sql;
+            this.binds = binds;
+            this.bindCount = bindCount;
+            this.nanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long start = System.nanoTime();
+                    Object hasNext = SlowQueryLoggingDataSource.invoke(target, method, args);
+                    nanos += System.nanoTime() - start;
+                    if (Boolean.TRUE.equals(hasNext)) {
+                        rows++;
+                    }
+                    return hasNext;
+                }
+                case "close":
+                    if (!recorded) {
+                        recorded = true;
+                        slowQueryLog.record(sql, binds, bindCount, nanos, rows);
+                    }
+                    return SlowQueryLoggingDataSource.invoke(target, method, args);
+                default:
+                    return SlowQueryLoggingDataSource.invoke(target, method, args);
+            }
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long sum = 0;
+            for (int count : (int[]) result) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+        if (result instanceof long[]) {
+            long sum = 0;
+            for (long count : (long[]) result) {
+                sum += Math.max(count, 0);
+            }
+            return sum;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SlowQueryLoggingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package juon.querydsl.slowlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 여러 스레드가 넣고 한 스레드(기록 스레드)만 꺼내는 고정 크기 ring buffer.
+ * 넣는 쪽은 CAS 한 번으로 자리를 잡고, 가득 차 있으면 기다리지 않고 버린다.
+ */
+class SlowQueryRingBuffer {
+    private final AtomicReferenceArray<SlowQueryEntry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    SlowQueryRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(SlowQueryEntry entry) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.lazySet((int) (t & mask), entry);
+        return true;
+    }
+
+    /**
+     * 기록 스레드에서만 호출한다. 자리만 잡고 아직 쓰지 않은 칸이면 null.
+     */
+    SlowQueryEntry poll() {
+        long h = head.get();
+        int index = (int) (h & mask);
+        SlowQueryEntry entry = slots.get(index);
+        if (entry == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(h + 1);
+        return entry;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package juon.querydsl.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 팀별 회원 수, 나이 합계/최소/최대. 회원이 없으면 count 0, min/max 는 null 이다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class TeamStats {
+    private final Long teamId;
+    private final long memberCount;
+    private final long ageSum;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    public static TeamStats empty(Long teamId) {
+        return new TeamStats(teamId, 0, 0, null, null);
+    }
+
+    public Double getAvgAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
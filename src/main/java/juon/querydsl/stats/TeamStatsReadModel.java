@@ -0,0 +1,574 @@
+package juon.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.QMember;
+import juon.querydsl.query.BulkClauseEvent;
+import juon.querydsl.query.BulkClauseListener;
+import juon.querydsl.query.EntityWriteListener;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static juon.querydsl.entity.QMember.member;
+
+/**
+ * 팀별 회원 수/나이 합계/최소/최대를 메모리에 유지해서, member 를 team 으로 group by 하지 않고 팀 수만큼만 읽는다.
+ *
+ * 팀마다 나이별 회원 수(histogram)를 두므로 최소/최대 나이의 회원이 빠져도 다시 조회하지 않는다.
+ * 변경은 트랜잭션 안에서 모아두었다가 커밋된 뒤에 반영한다. (롤백되면 버린다)
+ * - Member persist/remove/changeTeam/나이 변경의 flush : hibernate post-insert/update/delete 이벤트
+ * - Querydsl update/delete 절 : BulkClauseListener. 실행 전에 대상 팀을 찾아두고 커밋 후 그 팀만 DB 에서 다시 읽는다.
+ *   where 가 없거나 team 을 바꾸는 update 는 대상 팀을 알 수 없으므로 전체를 다시 읽는다.
+ *
+ * 처음 조회할 때 전체를 읽고(rebuild), reconcile-interval 마다 DB 와 비교해서 어긋난 팀을 바로잡는다.
+ * 인스턴스마다 따로 유지하므로 다른 인스턴스/외부에서의 변경은 reconcile 전까지 반영되지 않는다.
+ *
+ * DB 에서 읽는 동안(load) 커밋된 변경은 읽은 값에 들어갔는지 알 수 없으므로 아래처럼 맞춘다.
+ * - load 중에 반영하려는 변경은 journal 에 모았다가, 읽은 값으로 바꾼 뒤에 다시 반영한다
+ * - 변경을 마지막으로 기록한 시각(recordedAt)은 DB 커밋보다 앞선다. 그 팀을 마지막으로 읽은 시각보다 늦으면
+ *   읽은 값에 없는 변경이므로 더하고, 이르면 들어갔을 수도 있으므로 더하지 않고 그 팀을 다시 읽는다
+ * 다시 읽기는 reconciler 스레드에서 하므로, 커밋한 스레드가 커넥션을 잡은 채로 다른 커넥션을 기다리지 않는다.
+ */
+@Slf4j
+@Component
+public class TeamStatsReadModel implements BulkClauseListener, Closeable {
+    private static final String AGE = "age";
+    private static final String TEAM = "team";
+    private static final int MAX_REFRESH_PASSES = 10;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    private final JPAQueryFactory factory;
+    private final TransactionTemplate readOnly;
+    private final Map<Long, AgeHistogram> teams = new ConcurrentHashMap<>();
+    /**
+     * 팀 단위 반영은 read lock, journal 시작과 읽은 값으로 바꾸는 것은 write lock
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * load 는 한 번에 하나씩
+     */
+    private final Object loadMonitor = new Object();
+    private final ScheduledExecutorService reconciler;
+    /**
+     * 마지막으로 읽은 시각(System.nanoTime). 전체를 읽으면 teamLoadedAt 은 비운다.
+     */
+    private final Map<Long, Long> teamLoadedAt = new ConcurrentHashMap<>();
+    private volatile long allLoadedAt;
+    /**
+     * load 중이면 반영할 변경을 모은다. lock 으로 보호한다.
+     */
+    private List<Changes> journal;
+    private volatile boolean loaded;
+
+    public TeamStatsReadModel(JPAQueryFactory factory, PlatformTransactionManager transactionManager,
+                              @Value("${team.stats.reconcile-interval:10m}") Duration reconcileInterval) {
+        this.factory = factory;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnly.setReadOnly(true);
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!reconcileInterval.isZero()) {
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly,
+                    reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PostConstruct
+    void registerEntityListener() {
+        new MemberChangeListener().register(emf);
+    }
+
+    public TeamStats get(Long teamId) {
+        ensureLoaded();
+        AgeHistogram histogram = teams.get(teamId);
+        return histogram == null ? TeamStats.empty(teamId) : histogram.snapshot(teamId);
+    }
+
+    /**
+     * 회원이 있는 팀만 포함된다.
+     */
+    public List<TeamStats> all() {
+        ensureLoaded();
+        List<TeamStats> result = new ArrayList<>(teams.size());
+        teams.forEach((teamId, histogram) -> result.add(histogram.snapshot(teamId)));
+        return result;
+    }
+
+    public void rebuild() {
+        refresh(null);
+    }
+
+    /**
+     * DB 에서 다시 계산한 값과 다른 팀을 바로잡는다.
+     * 읽는 동안 반영된 변경의 팀은 세지 않는다. 읽는 동안 커밋 중이던 변경의 팀은 어긋난 것으로 셀 수 있다.
+     *
+     * @return 어긋나 있던 팀 수
+     */
+    public int reconcile() {
+        return refresh(null);
+    }
+
+    /**
+     * 커밋 후 reconciler 스레드로 넘긴 다시 읽기가 끝날 때까지 기다린다.
+     */
+    void awaitRefresh() {
+        try {
+            reconciler.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void beforeExecute(BulkClauseEvent event) {
+        if (!event.targets(Member.class) || !(event.isDelete() || event.updates(AGE) || event.updates(TEAM))) {
+            return;
+        }
+        Changes changes = changes();
+        changes.recordedAt = System.nanoTime();
+        if (!loaded || event.getWhere() == null || event.updates(TEAM)) {
+            changes.rebuildAll = true;
+            return;
+        }
+
+        QMember target = new QMember(event.getEntity().getMetadata());
+        changes.staleTeams.addAll(factory
+                .select(target.team().id)
+                .distinct()
+                .from(target)
+                .where(event.getWhere(), target.team().isNotNull())
+                .fetch());
+    }
+
+    @Override
+    public void afterExecute(BulkClauseEvent event, long affectedRows) {
+    }
+
+    @Override
+    public void close() {
+        reconciler.shutdownNow();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (loadMonitor) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            int drifted = reconcile();
+            if (drifted > 0) {
+                log.warn("팀 통계 {}개를 DB 기준으로 바로잡았습니다.", drifted);
+            }
+        } catch (RuntimeException e) {
+            log.error("팀 통계 reconcile 실패", e);
+        }
+    }
+
+    /**
+     * teamIds(null 이면 전체)를 다시 읽어서 바꾸고, 읽는 동안 모인 journal 을 반영한다.
+     * journal 중 읽은 값에 들어갔는지 모르는 팀은 다시 읽는다.
+     *
+     * @return 전체를 읽었을 때 어긋나 있던 팀 수
+     */
+    private int refresh(Collection<Long> teamIds) {
+        synchronized (loadMonitor) {
+            int drifted = 0;
+            Collection<Long> target = teamIds;
+            for (int pass = 0; pass < MAX_REFRESH_PASSES; pass++) {
+                Swap swap = loadAndSwap(target);
+                if (pass == 0) {
+                    drifted = swap.drifted;
+                }
+
+                Set<Long> stale = new HashSet<>();
+                boolean all = false;
+                for (Changes changes : swap.pending) {
+                    if (changes.rebuildAll) {
+                        all = true;
+                    } else {
+                        stale.addAll(applyDeltas(changes));
+                        stale.addAll(changes.staleTeams);
+                    }
+                }
+                if (!all && stale.isEmpty()) {
+                    return drifted;
+                }
+                target = all ? null : stale;
+            }
+
+            // 변경이 계속 들어오면 다른 load 가 기다리지 않도록 나머지는 reconciler 스레드에서 이어서 읽는다
+            Collection<Long> remaining = target;
+            reconciler.execute(() -> refreshQuietly(remaining));
+            return drifted;
+        }
+    }
+
+    private Swap loadAndSwap(Collection<Long> teamIds) {
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, AgeHistogram> fresh;
+        try {
+            fresh = load(teamIds);
+        } catch (RuntimeException e) {
+            // 바꾸지 못했으므로 모인 변경은 지금 값에 반영한다
+            endJournal().forEach(this::apply);
+            throw e;
+        }
+        long loadedAt = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            List<Changes> pending = journal;
+            journal = null;
+            int drifted = 0;
+            if (teamIds == null) {
+                if (loaded) {
+                    drifted = countDrift(fresh, touchedTeams(pending));
+                }
+                teams.clear();
+                teams.putAll(fresh);
+                teamLoadedAt.clear();
+                allLoadedAt = loadedAt;
+                loaded = true;
+            } else {
+                for (Long teamId : teamIds) {
+                    AgeHistogram histogram = fresh.get(teamId);
+                    if (histogram == null) {
+                        teams.remove(teamId);
+                    } else {
+                        teams.put(teamId, histogram);
+                    }
+                    teamLoadedAt.put(teamId, loadedAt);
+                }
+            }
+            return new Swap(pending, drifted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Changes> endJournal() {
+        lock.writeLock().lock();
+        try {
+            List<Changes> pending = journal;
+            journal = null;
+            return pending;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int countDrift(Map<Long, AgeHistogram> fresh, Set<Long> touched) {
+        Set<Long> teamIds = new HashSet<>(teams.keySet());
+        teamIds.addAll(fresh.keySet());
+        teamIds.removeAll(touched);
+        int drifted = 0;
+        for (Long teamId : teamIds) {
+            AgeHistogram current = teams.get(teamId);
+            AgeHistogram expected = fresh.get(teamId);
+            TeamStats before = current == null ? TeamStats.empty(teamId) : current.snapshot(teamId);
+            TeamStats after = expected == null ? TeamStats.empty(teamId) : expected.snapshot(teamId);
+            if (!before.equals(after)) {
+                drifted++;
+                log.warn("팀 통계가 DB 와 다릅니다. 메모리={} DB={}", before, after);
+            }
+        }
+        return drifted;
+    }
+
+    private static Set<Long> touchedTeams(List<Changes> pending) {
+        Set<Long> touched = new HashSet<>();
+        for (Changes changes : pending) {
+            changes.deltas.forEach(delta -> touched.add(delta.teamId));
+            touched.addAll(changes.staleTeams);
+        }
+        return touched;
+    }
+
+    /**
+     * teamIds 가 null 이면 전체. 나이별로 묶어서 읽으므로 결과는 (팀 수 x 나이 종류) 행이다.
+     */
+    private Map<Long, AgeHistogram> load(Collection<Long> teamIds) {
+        Predicate scope = teamIds == null ? member.team().isNotNull() : member.team().id.in(teamIds);
+        List<Tuple> rows = readOnly.execute(status -> factory
+                .select(member.team().id, member.age, member.count())
+                .from(member)
+                .where(scope)
+                .groupBy(member.team().id, member.age)
+                .fetch());
+
+        Map<Long, AgeHistogram> histograms = new HashMap<>();
+        for (Tuple row : rows) {
+            histograms.computeIfAbsent(row.get(member.team().id), teamId -> new AgeHistogram())
+                    .add(row.get(member.age), row.get(member.count()));
+        }
+        return histograms;
+    }
+
+    /**
+     * 커밋된 변경을 반영한다. DB 를 다시 읽어야 하는 팀은 reconciler 스레드로 넘긴다.
+     */
+    private void apply(Changes changes) {
+        Set<Long> stale = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (journal != null) {
+                synchronized (journal) {
+                    journal.add(changes);
+                }
+                return;
+            }
+            if (!loaded) {
+                // 처음 읽을 때 이미 DB 에 들어가 있다
+                return;
+            }
+            if (!changes.rebuildAll) {
+                stale.addAll(applyDeltas(changes));
+                stale.addAll(changes.staleTeams);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (changes.rebuildAll) {
+            reconciler.execute(() -> refreshQuietly(null));
+        } else if (!stale.isEmpty()) {
+            reconciler.execute(() -> refreshQuietly(stale));
+        }
+    }
+
+    /**
+     * @return 읽은 값에 이미 들어갔을 수도 있어서 더하지 않은 팀
+     */
+    private Set<Long> applyDeltas(Changes changes) {
+        Set<Long> ambiguous = new HashSet<>();
+        for (Delta delta : changes.deltas) {
+            Long teamLoaded = teamLoadedAt.get(delta.teamId);
+            long loadedAt = teamLoaded != null ? teamLoaded : allLoadedAt;
+            if (changes.recordedAt - loadedAt <= 0) {
+                ambiguous.add(delta.teamId);
+                continue;
+            }
+            teams.compute(delta.teamId, (teamId, current) -> {
+                AgeHistogram histogram = current == null ? new AgeHistogram() : current;
+                histogram.add(delta.age, delta.count);
+                return histogram.isEmpty() ? null : histogram;
+            });
+        }
+        return ambiguous;
+    }
+
+    private void refreshQuietly(Collection<Long> teamIds) {
+        try {
+            refresh(teamIds);
+        } catch (RuntimeException e) {
+            log.error("팀 통계 다시 읽기 실패: {}", teamIds == null ? "전체" : teamIds, e);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션에서 모은 변경. 트랜잭션 밖이면 호출한 쪽에서 바로 반영하도록 immediate 로 표시한다.
+     */
+    private Changes changes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Changes immediate = new Changes();
+            immediate.immediate = true;
+            return immediate;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes bound = new Changes();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatsReadModel.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(bound);
+                    }
+                }
+            });
+            changes = bound;
+        }
+        return changes;
+    }
+
+    private void record(Long teamId, int age, long count) {
+        if (teamId == null) {
+            return;
+        }
+        Changes changes = changes();
+        changes.deltas.add(new Delta(teamId, age, count));
+        changes.recordedAt = System.nanoTime();
+        if (changes.immediate) {
+            apply(changes);
+        }
+    }
+
+    private Long teamId(Object team) {
+        return team == null ? null : (Long) emf.getPersistenceUnitUtil().getIdentifier(team);
+    }
+
+    private static class Changes {
+        private final List<Delta> deltas = new ArrayList<>();
+        private final Set<Long> staleTeams = new HashSet<>();
+        private boolean rebuildAll;
+        private boolean immediate;
+        /**
+         * 마지막으로 기록한 시각(System.nanoTime). DB 커밋은 항상 이 뒤다.
+         */
+        private long recordedAt;
+    }
+
+    private static class Swap {
+        private final List<Changes> pending;
+        private final int drifted;
+
+        Swap(List<Changes> pending, int drifted) {
+            this.pending = pending;
+            this.drifted = drifted;
+        }
+    }
+
+    private static class Delta {
+        private final Long teamId;
+        private final int age;
+        private final long count;
+
+        Delta(Long teamId, int age, long count) {
+            this.teamId = teamId;
+            this.age = age;
+            this.count = count;
+        }
+    }
+
+    /**
+     * 나이 -> 회원 수. count/sum 은 따로 누적하고, min/max 는 TreeMap 의 처음/끝 key 다.
+     */
+    private static class AgeHistogram {
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+        private long count;
+        private long sum;
+
+        synchronized void add(int age, long delta) {
+            ages.merge(age, delta, (a, b) -> a + b == 0 ? null : a + b);
+            count += delta;
+            sum += age * delta;
+        }
+
+        synchronized boolean isEmpty() {
+            return count == 0;
+        }
+
+        synchronized TeamStats snapshot(Long teamId) {
+            if (count == 0) {
+                return TeamStats.empty(teamId);
+            }
+            return new TeamStats(teamId, count, sum, ages.firstKey(), ages.lastKey());
+        }
+    }
+
+    private class MemberChangeListener extends EntityWriteListener {
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Member) {
+                record(team(event.getPersister(), event.getState()), age(event.getPersister(), event.getState()), 1);
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof Member)) {
+                return;
+            }
+            if (event.getOldState() == null) {
+                // 이전 값을 모르면 (detached merge 등) 전체를 다시 읽는다
+                Changes changes = changes();
+                changes.rebuildAll = true;
+                changes.recordedAt = System.nanoTime();
+                if (changes.immediate) {
+                    apply(changes);
+                }
+                return;
+            }
+
+            EntityPersister persister = event.getPersister();
+            Long beforeTeam = team(persister, event.getOldState());
+            Long afterTeam = team(persister, event.getState());
+            int beforeAge = age(persister, event.getOldState());
+            int afterAge = age(persister, event.getState());
+            if (!Objects.equals(beforeTeam, afterTeam) || beforeAge != afterAge) {
+                record(beforeTeam, beforeAge, -1);
+                record(afterTeam, afterAge, 1);
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof Member) {
+                record(team(event.getPersister(), event.getDeletedState()),
+                        age(event.getPersister(), event.getDeletedState()), -1);
+            }
+        }
+
+        private Long team(EntityPersister persister, Object[] state) {
+            return teamId(state[propertyIndex(persister, TEAM)]);
+        }
+
+        private int age(EntityPersister persister, Object[] state) {
+            return (Integer) state[propertyIndex(persister, AGE)];
+        }
+    }
+}
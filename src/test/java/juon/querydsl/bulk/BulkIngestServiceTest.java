@@ -0,0 +1,59 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class BulkIngestServiceTest {
+    private static final Logger log = LoggerFactory.getLogger(BulkIngestServiceTest.class);
+
+    @Autowired JPAQueryFactory factory;
+    @Autowired BulkIngestService ingestService;
+
+    @Test
+    void ingestTeams() {
+        List<Team> teams = new ArrayList<>();
+        for (int t = 0; t < 10; t++) {
+            Team team = new Team("team" + t);
+            for (int m = 0; m < 500; m++) {
+                new Member("memb" + t + "_" + m, 20 + m % 40, team);
+            }
+            teams.add(team);
+        }
+
+        IngestResult result = ingestService.ingestTeams(teams, 200);
+        log.info("rows/sec = {}", (long) result.rowsPerSecond());
+
+        assertThat(result.getRows()).isEqualTo(10 + 10 * 500);
+        assertThat(result.rowsPerSecond()).isPositive();
+        assertThat(factory.select(team.count()).from(team).fetchOne()).isEqualTo(10);
+        assertThat(factory.select(member.count()).from(member)
+                .where(member.team().name.eq("team3"))
+                .fetchOne()).isEqualTo(500);
+    }
+
+    @Test
+    void ingestStream() {
+        IngestResult result = ingestService.ingest(
+                IntStream.range(0, 1000).mapToObj(i -> new Member("memb" + i, i % 60)), 100);
+
+        assertThat(result.getRows()).isEqualTo(1000);
+        assertThat(factory.select(member.count()).from(member).fetchOne()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,113 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class ChunkedBulkUpdaterTest {
+    private static final String JOB = "chunked-age-plus-one";
+    private static final int ROWS = 25;
+
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired ChunkedBulkUpdater updater;
+
+    @BeforeEach
+    void init() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("chunk" + i, 20));
+            }
+        });
+        updater.reset(JOB);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> factory
+                .delete(member)
+                .where(member.username.startsWith("chunk"))
+                .execute());
+        updater.reset(JOB);
+    }
+
+    @Test
+    void updateInChunks() {
+        List<ChunkProgress> progress = new ArrayList<>();
+
+        long updated = updater.execute(ChunkedUpdate.builder()
+                .name(JOB)
+                .id(member.id)
+                .clause(range -> factory
+                        .update(member)
+                        .set(member.age, member.age.add(1))
+                        .where(range, member.username.startsWith("chunk")))
+                .chunkSize(10)
+                .listener(progress::add)
+                .build());
+
+        assertThat(updated).isEqualTo(ROWS);
+        assertThat(progress.size()).isGreaterThanOrEqualTo(3);
+        assertThat(ages()).containsOnly(21);
+    }
+
+    @Test
+    void resumeAfterFailure() {
+        AtomicInteger chunks = new AtomicInteger();
+        ChunkedUpdate failing = ChunkedUpdate.builder()
+                .name(JOB)
+                .id(member.id)
+                .clause(range -> {
+                    if (chunks.incrementAndGet() == 2) {
+                        throw new IllegalStateException("crash");
+                    }
+                    return factory
+                            .update(member)
+                            .set(member.age, member.age.add(1))
+                            .where(range, member.username.startsWith("chunk"));
+                })
+                .chunkSize(10)
+                .build();
+
+        assertThatThrownBy(() -> updater.execute(failing)).isInstanceOf(IllegalStateException.class);
+
+        long updated = updater.execute(ChunkedUpdate.builder()
+                .name(JOB)
+                .id(member.id)
+                .clause(range -> factory
+                        .update(member)
+                        .set(member.age, member.age.add(1))
+                        .where(range, member.username.startsWith("chunk")))
+                .chunkSize(10)
+                .build());
+
+        // 첫 chunk 는 다시 실행되지 않는다
+        assertThat(updated).isEqualTo(ROWS);
+        assertThat(ages()).containsOnly(21);
+    }
+
+    private List<Integer> ages() {
+        return tx.execute(status -> factory
+                .select(member.age)
+                .from(member)
+                .where(member.username.startsWith("chunk"))
+                .fetch());
+    }
+}
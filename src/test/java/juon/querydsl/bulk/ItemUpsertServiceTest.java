@@ -0,0 +1,38 @@
+package juon.querydsl.bulk;
+
+import juon.querydsl.entity.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ItemUpsertServiceTest {
+    @PersistenceContext EntityManager em;
+    @Autowired ItemUpsertService upsertService;
+
+    @Test
+    void upsert() {
+        em.persist(new Item("A"));
+
+        UpsertResult first = upsertService.upsert(Arrays.asList(new Item("A"), new Item("B"), new Item("C")));
+        UpsertResult second = upsertService.upsert(Arrays.asList(new Item("B"), new Item("C"), new Item("D")));
+
+        assertThat(first.getInserted()).isEqualTo(2);
+        assertThat(first.getUpdated()).isEqualTo(1);
+        assertThat(second.getInserted()).isEqualTo(1);
+        assertThat(second.getUpdated()).isEqualTo(2);
+
+        em.clear();
+        Item b = em.find(Item.class, "B");
+        assertThat(b.getCreatedDate()).isNotNull();
+        assertThat(b.isNew()).isFalse();
+    }
+}
@@ -0,0 +1,69 @@
+package juon.querydsl.bulk;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class PersistenceContextSynchronizerTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+
+    @Test
+    void bulkUpdateEvictsOnlyMatchingEntities() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member memb1 = new Member("memb1", 31, teamA);
+        Member memb2 = new Member("memb2", 32, teamA);
+        Member memb3 = new Member("memb3", 33, teamA);
+        em.persist(memb1);
+        em.persist(memb2);
+        em.persist(memb3);
+
+        long count = factory
+                .update(member)
+                .set(member.username, "non_memb")
+                .where(member.age.lt(33))
+                .execute();
+
+        assertThat(count).isEqualTo(2);
+        assertThat(em.contains(memb1)).isFalse();
+        assertThat(em.contains(memb2)).isFalse();
+        assertThat(em.contains(memb3)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+
+        // em.clear() 없이 다시 조회해도 DB 값이 보인다
+        Member reloaded = factory
+                .selectFrom(member)
+                .where(member.id.eq(memb1.getId()))
+                .fetchOne();
+        assertThat(reloaded.getUsername()).isEqualTo("non_memb");
+    }
+
+    @Test
+    void bulkDeleteDetachesDeletedEntities() {
+        Member memb1 = new Member("memb1", 31);
+        Member memb2 = new Member("memb2", 32);
+        em.persist(memb1);
+        em.persist(memb2);
+
+        factory
+                .delete(member)
+                .where(member.username.eq("memb1"))
+                .execute();
+
+        assertThat(em.contains(memb1)).isFalse();
+        assertThat(em.contains(memb2)).isTrue();
+    }
+}
@@ -0,0 +1,149 @@
+package juon.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import juon.querydsl.query.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberUsernameCacheTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired MemberUsernameCache usernameCache;
+    @Autowired SqlStatementCounter counter;
+
+    Long teamId;
+    Long memb1Id;
+
+    @BeforeEach
+    void init() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("ucacheTeam");
+            Member memb1 = new Member("ucache1", 31, teamA);
+            em.persist(teamA);
+            em.persist(memb1);
+            em.persist(new Member("ucache2", 32, teamA));
+            em.flush();
+            teamId = teamA.getId();
+            memb1Id = memb1.getId();
+        });
+        usernameCache.invalidateAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).where(member.username.startsWith("ucache")).execute();
+            factory.delete(team).where(team.name.eq("ucacheTeam")).execute();
+        });
+    }
+
+    @Test
+    void lookupInNewTransactionHitsCache() {
+        tx.execute(status -> usernameCache.findStateByUsername("ucache1"));
+        long hits = usernameCache.stats().hitCount();
+
+        assertThatStatements(counter, () -> tx.execute(status -> usernameCache.findStateByUsername("ucache1")))
+                .hasSelects(0);
+        assertThat(usernameCache.stats().hitCount() - hits).isEqualTo(1);
+        assertThat(usernameCache.findStateByUsername("ucache1"))
+                .contains(new MemberState(memb1Id, "ucache1", 31, teamId));
+    }
+
+    @Test
+    void repeatedEntityLookupInOneTransaction() {
+        tx.executeWithoutResult(status -> {
+            Member first = usernameCache.findByUsername("ucache1").orElseThrow(IllegalStateException::new);
+            Member second = usernameCache.findByUsername("ucache1").orElseThrow(IllegalStateException::new);
+
+            assertThat(second).isSameAs(first);
+        });
+    }
+
+    @Test
+    void setUsernameInvalidatesOldKey() {
+        tx.execute(status -> usernameCache.findStateByUsername("ucache1"));
+
+        tx.executeWithoutResult(status -> {
+            Member memb1 = usernameCache.findByUsername("ucache1").orElseThrow(IllegalStateException::new);
+            memb1.setUsername("ucacheRenamed");
+
+            // flush 하지 않아도 조회 전에 flush 된다
+            assertThat(usernameCache.findByUsername("ucache1")).isEmpty();
+            assertThat(usernameCache.findByUsername("ucacheRenamed")).contains(memb1);
+        });
+
+        assertThat(usernameCache.findStateByUsername("ucache1")).isEmpty();
+        assertThat(usernameCache.findStateByUsername("ucacheRenamed")).map(MemberState::getId).contains(memb1Id);
+    }
+
+    @Test
+    void otherPropertyChangeRefreshesState() {
+        tx.execute(status -> usernameCache.findStateByUsername("ucache1"));
+
+        tx.executeWithoutResult(status -> em.find(Member.class, memb1Id).setAge(40));
+
+        assertThat(usernameCache.findStateByUsername("ucache1")).map(MemberState::getAge).contains(40);
+    }
+
+    @Test
+    void uncommittedChangeIsNotCached() {
+        tx.execute(status -> usernameCache.findStateByUsername("ucache1"));
+
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memb1Id).setAge(99);
+            // 쓴 트랜잭션 안에서는 자기 변경이 보인다
+            assertThat(usernameCache.findStateByUsername("ucache1")).map(MemberState::getAge).contains(99);
+            status.setRollbackOnly();
+        });
+
+        assertThat(usernameCache.findStateByUsername("ucache1")).map(MemberState::getAge).contains(31);
+    }
+
+    @Test
+    void bulkUpdateInvalidatesKeys() {
+        usernameCache.findStateByUsername("ucache1");
+        usernameCache.findStateByUsername("ucache2");
+
+        tx.executeWithoutResult(status -> factory
+                .update(member)
+                .set(member.username, "ucacheNon")
+                .where(member.username.startsWith("ucache"), member.age.lt(32))
+                .execute());
+
+        assertThat(usernameCache.findStateByUsername("ucache1")).isEmpty();
+        assertThat(usernameCache.findStateByUsername("ucache2")).isPresent();
+    }
+
+    @Test
+    void duplicateUsernameReturnsLowestId() {
+        Member older = new Member("ucacheDup", 40);
+        Member newer = new Member("ucacheDup", 41);
+        tx.executeWithoutResult(status -> {
+            em.persist(older);
+            em.persist(newer);
+        });
+
+        assertThat(usernameCache.findStateByUsername("ucacheDup")).map(MemberState::getId).contains(older.getId());
+        assertThat(usernameCache.findStateByUsername("ucacheDup")).map(MemberState::getId).contains(older.getId());
+
+        // 캐시된 회원의 username 이 바뀌면 남은 회원 중 id 가 가장 작은 회원
+        tx.executeWithoutResult(status -> em.find(Member.class, older.getId()).setUsername("ucacheNotDup"));
+        assertThat(usernameCache.findStateByUsername("ucacheDup")).map(MemberState::getId).contains(newer.getId());
+    }
+}
@@ -0,0 +1,174 @@
+package juon.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import juon.querydsl.query.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QueryResultCacheTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired QueryResultCache resultCache;
+    @Autowired SqlStatementCounter counter;
+
+    @BeforeEach
+    void init() {
+        resultCache.invalidateAll();
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("cachedTeamA");
+            Team teamB = new Team("cachedTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("cached1", 10, teamA));
+            em.persist(new Member("cached2", 20, teamA));
+            em.persist(new Member("cached3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).where(member.username.startsWith("cached")).execute();
+            factory.delete(team).where(team.name.startsWith("cachedTeam")).execute();
+        });
+    }
+
+    @Test
+    void cachesGroupBy() {
+        List<Tuple> first = tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        assertThatStatements(counter, () -> tx.execute(status -> resultCache.fetch(avgAgeByTeam())))
+                .hasSelects(0);
+        assertThat(tx.execute(status -> resultCache.fetch(avgAgeByTeam()))).isSameAs(first);
+        assertThat(first).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 30.0);
+        assertThat(resultCache.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keyIncludesConstants() {
+        Long teamA = tx.execute(status -> resultCache.fetchOne(countByTeam("cachedTeamA")));
+        Long teamB = tx.execute(status -> resultCache.fetchOne(countByTeam("cachedTeamB")));
+
+        assertThat(teamA).isEqualTo(2);
+        assertThat(teamB).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatedByEntityFlush() {
+        tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        tx.executeWithoutResult(status -> factory
+                .selectFrom(member)
+                .where(member.username.eq("cached3"))
+                .fetchOne()
+                .setAge(40));
+
+        List<Tuple> after = tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+        assertThat(after).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 40.0);
+    }
+
+    @Test
+    void invalidatedByBulkClause() {
+        tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        tx.executeWithoutResult(status -> factory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("cached"))
+                .execute());
+
+        List<Tuple> after = tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+        assertThat(after).extracting(t -> t.get(member.age.avg())).containsExactly(16.0, 31.0);
+    }
+
+    @Test
+    void bypassedAfterWriteInSameTransaction() {
+        tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        List<Tuple> uncommitted = tx.execute(status -> {
+            em.persist(new Member("cached4", 50, em.find(Team.class, factory
+                    .select(team.id)
+                    .from(team)
+                    .where(team.name.eq("cachedTeamB"))
+                    .fetchOne())));
+            em.flush();
+            List<Tuple> rows = resultCache.fetch(avgAgeByTeam());
+            status.setRollbackOnly();
+            return rows;
+        });
+        List<Tuple> afterRollback = tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        assertThat(uncommitted).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 40.0);
+        assertThat(afterRollback).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 30.0);
+    }
+
+    @Test
+    void bypassedAfterUnflushedChangeInSameTransaction() {
+        tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        List<Tuple> uncommitted = tx.execute(status -> {
+            factory.selectFrom(member)
+                    .where(member.username.eq("cached3"))
+                    .fetchOne()
+                    .setAge(40);
+            List<Tuple> rows = resultCache.fetch(avgAgeByTeam());
+            status.setRollbackOnly();
+            return rows;
+        });
+        List<Tuple> afterRollback = tx.execute(status -> resultCache.fetch(avgAgeByTeam()));
+
+        assertThat(uncommitted).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 40.0);
+        assertThat(afterRollback).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 30.0);
+    }
+
+    @Test
+    void rejectsEntityProjection() {
+        assertThatThrownBy(() -> tx.execute(status -> resultCache.fetch(factory.selectFrom(member))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tx.execute(status -> resultCache.fetch(factory
+                .select(member, team.name)
+                .from(member)
+                .join(member.team(), team))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tx.execute(status -> resultCache.fetch(factory.from(member))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JPAQuery<Tuple> avgAgeByTeam() {
+        return factory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team(), team)
+                .where(team.name.startsWith("cachedTeam"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc());
+    }
+
+    private JPAQuery<Long> countByTeam(String teamName) {
+        return factory
+                .select(member.count())
+                .from(member)
+                .join(member.team(), team)
+                .where(team.name.eq(teamName));
+    }
+}
@@ -0,0 +1,87 @@
+package juon.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("l2cache")
+class SecondLevelCacheTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired SecondLevelCacheMetrics metrics;
+
+    Long teamId;
+
+    @BeforeEach
+    void init() {
+        teamId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("memb1", 31, teamA));
+            em.persist(new Member("memb2", 32, teamA));
+            return teamA.getId();
+        });
+        em.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).execute();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void teamIsServedFromCache() {
+        loadMemberNames();
+        long hits = teamStats().getHits();
+
+        loadMemberNames();
+
+        assertThat(teamStats().getHits()).isGreaterThan(hits);
+    }
+
+    @Test
+    void bulkUpdateEvictsMembers() {
+        assertThat(loadMemberNames()).containsExactlyInAnyOrder("memb1", "memb2");
+
+        tx.executeWithoutResult(status -> factory
+                .update(member)
+                .set(member.username, "non_memb")
+                .where(member.age.lt(32))
+                .execute());
+
+        assertThat(loadMemberNames()).containsExactlyInAnyOrder("non_memb", "memb2");
+    }
+
+    private List<String> loadMemberNames() {
+        return tx.execute(status -> em.find(Team.class, teamId).getMembers().stream()
+                .map(Member::getUsername)
+                .collect(Collectors.toList()));
+    }
+
+    private RegionStats teamStats() {
+        return metrics.regions().stream()
+                .filter(stats -> stats.getRegion().equals(Team.class.getName()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+}
@@ -1,7 +1,11 @@
 package juon.querydsl.entity;
 
+import juon.querydsl.query.SqlStatementCounter;
+import juon.querydsl.query.StatementCounts;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +21,9 @@ class MemberTest {
     @PersistenceContext
     EntityManager em;
 
+    @Autowired
+    SqlStatementCounter counter;
+
     @Test
     void initTest() {
         Team teamA = new Team("teamA");
@@ -39,4 +46,49 @@ class MemberTest {
         List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
         Assertions.assertThat(members.size()).isEqualTo(4);
     }
+
+    @Test
+    void changeTeamDoesNotLoadMembers() {
+        Team big = new Team("big");
+        Team small = new Team("small");
+        em.persist(big);
+        em.persist(small);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("big" + i, 20, big));
+        }
+        Member moving = new Member("moving", 30, small);
+        em.persist(moving);
+        em.flush();
+        em.clear();
+
+        Team bigTeam = em.find(Team.class, big.getId());
+        Member found = em.find(Member.class, moving.getId());
+
+        StatementCounts counts = counter.count(() -> {
+            found.changeTeam(bigTeam);
+            em.flush();
+        });
+
+        Assertions.assertThat(Hibernate.isInitialized(bigTeam.getMembers())).isFalse();
+        // member 의 team 프록시 초기화(select 1) + team_id update 1
+        Assertions.assertThat(counts.getSelects()).isLessThanOrEqualTo(1);
+        Assertions.assertThat(counts.getUpdates()).isEqualTo(1);
+
+        Assertions.assertThat(bigTeam.getMembers()).hasSize(101).containsOnlyOnce(found);
+    }
+
+    @Test
+    void changeTeamRemovesFromLoadedPreviousTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member memb1 = new Member("memb1", 31, teamA);
+        em.persist(memb1);
+
+        memb1.changeTeam(teamB);
+
+        Assertions.assertThat(teamA.getMembers()).doesNotContain(memb1);
+        Assertions.assertThat(teamB.getMembers()).containsExactly(memb1);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package juon.querydsl.entity;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 동시에 insert 하는 트랜잭션들이 sequence 를 거의 호출하지 않고 id 를 받아가는지 확인한다.
+ * juon.id.allocation_size=1 로 실행하면 insert 마다 sequence 를 호출하던 이전 방식의 수치를 볼 수 있다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PooledSequenceGeneratorTest {
+    private static final Logger log = LoggerFactory.getLogger(PooledSequenceGeneratorTest.class);
+
+    private static final int THREADS = 4;
+    private static final int INSERTS_PER_THREAD = 2_000;
+
+    @PersistenceContext EntityManager em;
+    @PersistenceUnit EntityManagerFactory emf;
+    @Autowired TransactionTemplate tx;
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> em.createQuery("delete from Member m where m.username like 'pooled%'")
+                .executeUpdate());
+    }
+
+    @Test
+    void concurrentInserts() throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> tx.executeWithoutResult(status -> {
+                    for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                        Member member = new Member("pooled" + thread + "_" + i, 20);
+                        em.persist(member);
+                        ids.add(member.getId());
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int total = THREADS * INSERTS_PER_THREAD;
+        log.info("inserts/sec = {}, statements = {}",
+                total * TimeUnit.SECONDS.toNanos(1) / elapsed, statistics.getPrepareStatementCount());
+
+        assertThat(ids).hasSize(total);
+        // insert 는 batch 로 묶이고 sequence 는 블록(50)마다 한 번만 호출된다.
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(total / 10);
+    }
+}
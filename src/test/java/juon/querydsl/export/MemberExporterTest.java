@@ -0,0 +1,109 @@
+package juon.querydsl.export;
+
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExporterTest {
+    private static final Logger log = LoggerFactory.getLogger(MemberExporterTest.class);
+    private static final int ROWS = 10_000;
+
+    @PersistenceContext EntityManager em;
+    @Autowired MemberExporter exporter;
+
+    @TempDir Path dir;
+
+    @BeforeEach
+    void init() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("team,B");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < ROWS; i++) {
+            em.persist(new Member("memb" + i, 20 + i % 50, i % 2 == 0 ? teamA : teamB));
+            if (i % 1000 == 0) {
+                em.flush();
+                em.clear();
+                teamA = em.find(Team.class, teamA.getId());
+                teamB = em.find(Team.class, teamB.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void exportCsv() throws IOException {
+        Path file = dir.resolve("members.csv");
+
+        resetPeakHeap();
+        ExportResult result = exporter.export(file, ExportFormat.CSV, 500);
+        long peakHeap = peakHeap();
+
+        log.info("rows/sec = {}, peak heap = {}MB", (long) result.rowsPerSecond(), peakHeap / 1024 / 1024);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(result.getRows()).isEqualTo(ROWS);
+        // peak heap 은 GC 시점에 따라 달라서 비교하지 않는다. row 수만큼 쌓이는지는 영속성 컨텍스트 크기로 본다
+        assertThat(result.getMaxManagedEntities()).isLessThanOrEqualTo(500);
+        assertThat(result.rowsPerSecond()).isPositive();
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines.get(0)).isEqualTo("username,age,teamName");
+        assertThat(lines.get(1)).isEqualTo("memb0,20,teamA");
+        assertThat(lines.get(2)).isEqualTo("memb1,21,\"team,B\"");
+    }
+
+    @Test
+    void exportNdjson() throws IOException {
+        Path file = dir.resolve("members.ndjson");
+
+        ExportResult result = exporter.export(file, ExportFormat.NDJSON, 500);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(result.getRows()).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS);
+        assertThat(lines.get(0)).contains("\"username\":\"memb0\"");
+    }
+
+    private void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
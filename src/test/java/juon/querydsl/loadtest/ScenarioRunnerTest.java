@@ -0,0 +1,56 @@
+package juon.querydsl.loadtest;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static juon.querydsl.entity.QItem.item;
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ScenarioRunnerTest {
+    @Autowired SyntheticDataGenerator generator;
+    @Autowired ScenarioRunner runner;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).where(member.username.startsWith(SyntheticDataGenerator.PREFIX)).execute();
+            factory.delete(team).where(team.name.startsWith(SyntheticDataGenerator.PREFIX)).execute();
+            factory.delete(item).where(item.id.startsWith(SyntheticDataGenerator.PREFIX)).execute();
+        });
+    }
+
+    @Test
+    void runsEveryScenario() throws InterruptedException {
+        generator.generate(5, 300, 50, 1.1, 1);
+
+        Map<LoadScenario, Integer> mix = new EnumMap<>(LoadScenario.class);
+        for (LoadScenario scenario : LoadScenario.values()) {
+            mix.put(scenario, 1);
+        }
+        LoadTestReport report = runner.run(mix, 2, Duration.ZERO, Duration.ofSeconds(2));
+
+        assertThat(report.getScenarios()).hasSize(LoadScenario.values().length);
+        assertThat(report.totalErrors()).isZero();
+        assertThat(report.getScenarios()).allSatisfy(stats -> assertThat(stats.getCount()).isPositive());
+    }
+
+    @Test
+    void parseMix() {
+        assertThat(ScenarioRunner.parseMix("FETCH_ONE_BY_USERNAME=40, OFFSET_PAGING=20"))
+                .containsEntry(LoadScenario.FETCH_ONE_BY_USERNAME, 40)
+                .containsEntry(LoadScenario.OFFSET_PAGING, 20);
+    }
+}
@@ -0,0 +1,82 @@
+package juon.querydsl.paging;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class KeysetPagerTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired KeysetPager pager;
+
+    @BeforeEach
+    void init() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        // 같은 나이를 섞어서 tie-breaker 가 필요하도록
+        em.persist(new Member("memb1", 30, teamA));
+        em.persist(new Member("memb2", 30, teamA));
+        em.persist(new Member("memb3", 31, teamA));
+        em.persist(new Member("memb4", 31, teamA));
+        em.persist(new Member("memb5", 32, teamA));
+    }
+
+    @Test
+    void keysetPaging() {
+        List<OrderSpecifier<?>> orders = Collections.singletonList(member.age.desc());
+        List<String> usernames = new ArrayList<>();
+
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<Member> page = pager.fetchMembers(factory.selectFrom(member), orders, cursor, 2);
+            page.getContent().forEach(m -> usernames.add(m.getUsername()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(usernames).containsExactly("memb5", "memb3", "memb4", "memb1", "memb2");
+    }
+
+    @Test
+    void keysetPaging_withCondition() {
+        List<OrderSpecifier<?>> orders = Collections.singletonList(member.username.asc());
+
+        KeysetPage<Member> first = pager.fetchMembers(
+                factory.selectFrom(member).where(member.age.goe(31)), orders, null, 2);
+        KeysetPage<Member> second = pager.fetchMembers(
+                factory.selectFrom(member).where(member.age.goe(31)), orders, first.getNextCursor(), 2);
+
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getContent()).extracting("username").containsExactly("memb5");
+    }
+
+    @Test
+    void invalidCursor() {
+        List<OrderSpecifier<?>> orders = Collections.singletonList(member.age.desc());
+
+        assertThatThrownBy(() -> pager.fetchMembers(factory.selectFrom(member), orders, "not-a-cursor", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
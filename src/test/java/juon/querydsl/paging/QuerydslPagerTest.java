@@ -0,0 +1,117 @@
+package juon.querydsl.paging;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import juon.querydsl.query.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QuerydslPagerTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired QuerydslPager pager;
+    @Autowired CountCache countCache;
+    @Autowired SqlStatementCounter counter;
+
+    @BeforeEach
+    void init() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("memb" + i, 30 + i, teamA));
+        }
+        countCache.clear();
+    }
+
+    @Test
+    void firstPage_shorterThanLimit() {
+        em.flush();
+
+        // content 가 page size 보다 작으면 count 쿼리 없이 content 조회 한 번
+        assertThatStatements(counter, () -> {
+            Page<Member> page = pager.fetchPage(
+                    factory.selectFrom(member),
+                    factory.select(member.count()).from(member),
+                    PageRequest.of(0, 10));
+
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(page.getContent()).hasSize(5);
+        }).hasSelects(1);
+    }
+
+    @Test
+    void lastPage_withoutCount() {
+        em.flush();
+
+        assertThatStatements(counter, () -> {
+            Page<Member> page = pager.fetchPage(
+                    factory.selectFrom(member),
+                    factory.select(member.count()).from(member),
+                    PageRequest.of(2, 2));
+
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(page.getContent()).hasSize(1);
+        }).hasSelects(1);
+    }
+
+    @Test
+    void middlePage_needsCount() {
+        em.flush();
+
+        assertThatStatements(counter, () -> pager.fetchPage(
+                factory.selectFrom(member),
+                factory.select(member.count()).from(member),
+                PageRequest.of(1, 2)))
+                .hasSelects(2);
+    }
+
+    @Test
+    void middlePage_withSort() {
+        Page<Member> page = pager.fetchPage(
+                factory.selectFrom(member),
+                factory.select(member.count()).from(member),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("memb3", "memb2");
+    }
+
+    @Test
+    void cachedTotal() {
+        PageRequest pageable = PageRequest.of(0, 2);
+
+        Page<Member> first = pager.fetchPageCachingTotal(
+                factory.selectFrom(member).where(member.age.gt(30)),
+                factory.select(member.count()).from(member).where(member.age.gt(30)),
+                pageable);
+
+        em.persist(new Member("memb6", 36));
+
+        // TTL 안에서는 같은 조건의 건수를 재사용
+        Page<Member> second = pager.fetchPageCachingTotal(
+                factory.selectFrom(member).where(member.age.gt(30)),
+                factory.select(member.count()).from(member).where(member.age.gt(30)),
+                pageable);
+
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(second.getTotalElements()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,131 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AsyncQueryFactoryTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired AsyncQueryFactory asyncQueries;
+    @Autowired TransactionTemplate tx;
+    @Autowired MeterRegistry registry;
+
+    @BeforeEach
+    void init() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("asyncTeamA");
+            Team teamB = new Team("asyncTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("async1", 10, teamA));
+            em.persist(new Member("async2", 20, teamA));
+            em.persist(new Member("async3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).where(member.username.startsWith("async")).execute();
+            factory.delete(team).where(team.name.startsWith("asyncTeam")).execute();
+        });
+    }
+
+    @Test
+    void independentQueriesRunConcurrently() {
+        CompletableFuture<Long> count = asyncQueries.supply(f -> f
+                .select(member.count())
+                .from(member)
+                .where(member.username.startsWith("async"))
+                .fetchOne());
+        CompletableFuture<List<Tuple>> group = asyncQueries.supply(f -> f
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team(), team)
+                .where(team.name.startsWith("asyncTeam"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch());
+        CompletableFuture<Integer> maxAge = asyncQueries.supply(f -> f
+                .select(member.age.max())
+                .from(member)
+                .where(member.username.startsWith("async"))
+                .fetchOne());
+
+        CompletableFuture.allOf(count, group, maxAge).join();
+
+        assertThat(count.join()).isEqualTo(3);
+        assertThat(group.join()).extracting(t -> t.get(member.age.avg())).containsExactly(15.0, 30.0);
+        assertThat(maxAge.join()).isEqualTo(30);
+        assertThat(registry.get("querydsl.async.queue").timer().count()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void keepsCallerReadOnly() {
+        TransactionTemplate readWrite = new TransactionTemplate(tx.getTransactionManager());
+
+        Boolean readOnly = readWrite.execute(status -> asyncQueries
+                .supply(f -> TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+                .join());
+        Boolean withoutTransaction = asyncQueries
+                .supply(f -> TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+                .join();
+
+        assertThat(readOnly).isFalse();
+        assertThat(withoutTransaction).isTrue();
+    }
+
+    @Test
+    void rejectsWhenPoolIsFull() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        AsyncQueryFactory single = new AsyncQueryFactory(factory, tx.getTransactionManager(), meters, 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> busy = single.supply(f -> await(release));
+            CompletableFuture<Long> rejected = single.supply(f -> f.select(member.count()).from(member).fetchOne());
+
+            assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+            assertThat(meters.get("querydsl.async.rejected").counter().count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(busy.join()).isTrue();
+        } finally {
+            release.countDown();
+            single.shutdown();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.dto.MemberDTO;
+import juon.querydsl.dto.UserDTO;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.QMember;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+
+    @BeforeEach
+    void init() {
+        em.persist(new Member("proj1", 31));
+        em.persist(new Member("proj2", 32));
+        em.persist(new Member("proj3", 33));
+        em.flush();
+    }
+
+    @Test
+    void sameResultAsProjections() {
+        assertThat(fetch(FastProjections.bean(MemberDTO.class, member.username, member.age)))
+                .isEqualTo(fetch(Projections.bean(MemberDTO.class, member.username, member.age)));
+        assertThat(fetch(FastProjections.fields(MemberDTO.class, member.username, member.age)))
+                .isEqualTo(fetch(Projections.fields(MemberDTO.class, member.username, member.age)));
+        assertThat(fetch(FastProjections.constructor(MemberDTO.class, member.username, member.age)))
+                .isEqualTo(fetch(Projections.constructor(MemberDTO.class, member.username, member.age)));
+    }
+
+    @Test
+    void aliasedExpressions() {
+        QMember membSub = new QMember("membSub");
+
+        List<UserDTO> res = factory
+                .select(FastProjections.fields(UserDTO.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions.select(membSub.age.max()).from(membSub), "age")))
+                .from(member)
+                .where(member.username.eq("proj1"))
+                .fetch();
+
+        assertThat(res).hasSize(1);
+        assertThat(res.get(0).getName()).isEqualTo("proj1");
+        assertThat(res.get(0).getAge()).isGreaterThanOrEqualTo(33);
+    }
+
+    @Test
+    void invokerIsCachedPerShape() {
+        FastProjection<MemberDTO> first = FastProjections.bean(MemberDTO.class, member.username, member.age);
+        FastProjection<MemberDTO> second = FastProjections.bean(MemberDTO.class, new QMember("m").username, member.age);
+
+        assertThat(second.rowFactory()).isSameAs(first.rowFactory());
+        assertThat(first.newInstance("direct", null).getAge()).isZero();
+    }
+
+    @Test
+    void nullIntoPrimitiveConstructorParameter() {
+        // 빈 그룹이라 min(age) 가 null
+        MemberDTO empty = factory
+                .select(FastProjections.constructor(MemberDTO.class, member.username.max(), member.age.min()))
+                .from(member)
+                .where(member.username.eq("none"))
+                .fetchOne();
+
+        assertThat(empty.getUsername()).isNull();
+        assertThat(empty.getAge()).isZero();
+        assertThat(FastProjections.constructor(MemberDTO.class, member.username, member.age)
+                .newInstance("direct", null).getAge()).isZero();
+    }
+
+    private <T> List<T> fetch(Expression<T> projection) {
+        return factory
+                .select(projection)
+                .from(member)
+                .where(member.username.startsWith("proj"))
+                .orderBy(member.username.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,77 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.MemberDTO;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class FetchPlanTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired SqlStatementCounter counter;
+
+    @BeforeEach
+    void init() {
+        for (int i = 1; i <= 3; i++) {
+            Team t = new Team("planTeam" + i);
+            em.persist(t);
+            em.persist(new Member("plan" + i + "a", 20 + i, t));
+            em.persist(new Member("plan" + i + "b", 30 + i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void memberWithTeam() {
+        assertThatStatements(counter, () -> {
+            List<MemberDTO> dtos = FetchPlan.MEMBER_WITH_TEAM
+                    .applyTo(factory.selectFrom(member), em)
+                    .where(member.username.startsWith("plan"))
+                    .fetch()
+                    .stream()
+                    .map(MemberDTO::new)
+                    .collect(Collectors.toList());
+            assertThat(dtos).extracting("teamName").doesNotContainNull();
+        }).hasSelects(1);
+    }
+
+    @Test
+    void teamWithMembers() {
+        assertThatStatements(counter, () -> {
+            List<Team> teams = FetchPlan.TEAM_WITH_MEMBERS
+                    .applyTo(factory.selectFrom(team).distinct(), em)
+                    .where(team.name.startsWith("planTeam"))
+                    .fetch();
+            assertThat(teams).hasSize(3);
+            teams.forEach(t -> assertThat(t.getMembers()).hasSize(2));
+        }).hasSelects(1);
+    }
+
+    @Test
+    void withoutPlanMembersAreBatchFetched() {
+        assertThatStatements(counter, () -> factory
+                .selectFrom(team)
+                .where(team.name.startsWith("planTeam"))
+                .fetch()
+                .forEach(t -> t.getMembers().size()))
+                .hasSelects(2);
+    }
+}
@@ -0,0 +1,93 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class PartitionedAggregatorTest {
+    private static final int ROWS = 37;
+
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired PartitionedAggregator aggregator;
+
+    @BeforeEach
+    void init() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("partition" + i, 10 + (i * 7) % 50));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> factory
+                .delete(member)
+                .where(member.username.startsWith("partition"))
+                .execute());
+    }
+
+    @Test
+    void sameAsSingleStatement() {
+        Predicate where = member.username.startsWith("partition");
+        Tuple expected = tx.execute(status -> factory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .where(where)
+                .fetchOne());
+
+        PartitionedAggregator fourWay = new PartitionedAggregator(factory, tx.getTransactionManager(), 4);
+        try {
+            for (PartitionedAggregator partitioned : new PartitionedAggregator[]{aggregator, fourWay}) {
+                NumericAggregate ages = partitioned.aggregate(member.id, member.age, where);
+
+                assertThat(ages.getCount()).isEqualTo(expected.get(member.count()));
+                assertThat(ages.getSum().longValue()).isEqualTo(expected.get(member.age.sum()).longValue());
+                assertThat(ages.getAvg()).isCloseTo(expected.get(member.age.avg()), within(1e-9));
+                assertThat(ages.getMin()).isEqualTo(expected.get(member.age.min()));
+                assertThat(ages.getMax()).isEqualTo(expected.get(member.age.max()));
+            }
+        } finally {
+            fourWay.close();
+        }
+    }
+
+    @Test
+    void emptyRange() {
+        NumericAggregate ages = aggregator.aggregate(member.id, member.age, member.username.eq("nobody"));
+
+        assertThat(ages.getCount()).isZero();
+        assertThat(ages.getAvg()).isNull();
+        assertThat(ages.getMax()).isNull();
+    }
+
+    @Test
+    void mergeSkipsEmptyPartitions() {
+        NumericAggregate merged = new NumericAggregate(2, 30L, 10, 20)
+                .merge(NumericAggregate.EMPTY)
+                .merge(new NumericAggregate(1, 40L, 40, 40));
+
+        assertThat(merged.getCount()).isEqualTo(3);
+        assertThat(merged.getSum()).isEqualTo(70L);
+        assertThat(merged.getAvg()).isCloseTo(70 / 3.0, within(1e-9));
+        assertThat(merged.getMin()).isEqualTo(10);
+        assertThat(merged.getMax()).isEqualTo(40);
+    }
+}
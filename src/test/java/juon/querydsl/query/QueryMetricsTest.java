@@ -0,0 +1,66 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "query.metrics.enabled=true")
+@Transactional
+class QueryMetricsTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired MeterRegistry registry;
+
+    @BeforeEach
+    void init() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("memb1", 31, teamA));
+        em.persist(new Member("memb2", 32, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void recordsLatencyRowsAndStatements() {
+        List<Member> members = factory
+                .selectFrom(member)
+                .setHint(QueryMetrics.NAME, "metrics.members")
+                .where(member.username.in("memb1", "memb2"))
+                .fetch();
+
+        // team 프록시 초기화 -> batch fetch 로 lazy 로딩 1번
+        members.forEach(m -> m.getTeam().getName());
+
+        // 다음 조회가 시작되면 이전 조회의 lazy 구간이 닫힌다
+        factory.selectFrom(member).setHint(QueryMetrics.NAME, "metrics.next").fetch();
+
+        assertThat(registry.get("querydsl.query").tag("name", "metrics.members").timer().count()).isEqualTo(1);
+        assertThat(registry.get("querydsl.query.rows").tag("name", "metrics.members").summary().totalAmount()).isEqualTo(2);
+        assertThat(registry.get("querydsl.query.statements").tag("name", "metrics.members").summary().totalAmount()).isEqualTo(1);
+        assertThat(registry.get("querydsl.query.lazy.statements").tag("name", "metrics.members").summary().totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void tagsByCallSiteWithoutName() {
+        factory.selectFrom(member).fetch();
+
+        assertThat(registry.get("querydsl.query").tag("name", "QueryMetricsTest.tagsByCallSiteWithoutName").timer().count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,157 @@
+package juon.querydsl.query;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.dto.UserDTO;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryTemplateCacheTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired QueryTemplateCache templateCache;
+
+    @BeforeEach
+    void init() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("memb1", 31, teamA));
+        em.persist(new Member("memb2", 32, teamA));
+        em.persist(new Member("memb3", 33, teamA));
+        templateCache.clear();
+    }
+
+    @Test
+    void sameShape_differentValues() {
+        long misses = templateCache.getMissCount();
+        long hits = templateCache.getHitCount();
+
+        assertThat(search("memb1", null)).extracting("username").containsExactly("memb1");
+        assertThat(search("memb2", null)).extracting("username").containsExactly("memb2");
+        assertThat(search("memb3", 33)).extracting("username").containsExactly("memb3");
+        assertThat(search("memb3", 31)).isEmpty();
+
+        // username 조건만 있는 모양, username + age 조건 모양 두 가지
+        assertThat(templateCache.getMissCount() - misses).isEqualTo(2);
+        assertThat(templateCache.getHitCount() - hits).isEqualTo(2);
+        assertThat(templateCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void projectionAndPaging() {
+        List<UserDTO> first = templateCache.fetch(factory
+                .select(Projections.fields(UserDTO.class, member.username.as("name"), member.age))
+                .from(member)
+                .where(member.age.gt(30))
+                .orderBy(member.age.asc())
+                .offset(0)
+                .limit(2));
+        List<UserDTO> second = templateCache.fetch(factory
+                .select(Projections.fields(UserDTO.class, member.username.as("name"), member.age))
+                .from(member)
+                .where(member.age.gt(30))
+                .orderBy(member.age.asc())
+                .offset(2)
+                .limit(2));
+
+        assertThat(first).extracting("name").containsExactly("memb1", "memb2");
+        assertThat(second).extracting("name").containsExactly("memb3");
+        assertThat(templateCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void likeWildcardsInValues() {
+        em.persist(new Member("a_b1", 40));
+        em.persist(new Member("axb2", 40));
+        em.persist(new Member("100%off", 40));
+        em.persist(new Member("100xoff", 40));
+
+        List<BooleanExpression> conditions = Arrays.asList(
+                member.username.startsWith("a_b"),
+                member.username.contains("100%"),
+                member.username.endsWith("%off"),
+                member.username.containsIgnoreCase("A_B"));
+        for (BooleanExpression condition : conditions) {
+            List<String> uncached = factory.select(member.username).from(member).where(condition).fetch();
+            List<String> cached = templateCache.fetch(factory.select(member.username).from(member).where(condition));
+
+            assertThat(cached).as(condition.toString()).containsExactlyInAnyOrderElementsOf(uncached).hasSize(1);
+        }
+    }
+
+    @Test
+    void likeValuesShareOneTemplate() {
+        em.persist(new Member("likeA_1", 40));
+        em.persist(new Member("likeB_1", 40));
+        long misses = templateCache.getMissCount();
+        long hits = templateCache.getHitCount();
+
+        assertThat(templateCache.fetch(factory.select(member.username).from(member)
+                .where(member.username.contains("eA_"))))
+                .containsExactly("likeA_1");
+        assertThat(templateCache.fetch(factory.select(member.username).from(member)
+                .where(member.username.contains("eB_"))))
+                .containsExactly("likeB_1");
+
+        assertThat(templateCache.getMissCount() - misses).isEqualTo(1);
+        assertThat(templateCache.getHitCount() - hits).isEqualTo(1);
+    }
+
+    @Test
+    void castToNum() {
+        List<String> uncached = factory.select(member.username).from(member)
+                .where(member.username.startsWith("memb"), member.age.castToNum(Long.class).gt(31L))
+                .orderBy(member.username.asc())
+                .fetch();
+        List<String> cached = templateCache.fetch(factory.select(member.username).from(member)
+                .where(member.username.startsWith("memb"), member.age.castToNum(Long.class).gt(31L))
+                .orderBy(member.username.asc()));
+
+        assertThat(cached).isEqualTo(uncached).containsExactly("memb2", "memb3");
+    }
+
+    @Test
+    void emptyIn() {
+        assertThat(templateCache.fetch(factory.selectFrom(member)
+                .where(member.username.in(Collections.<String>emptyList())))).isEmpty();
+        assertThat(templateCache.fetch(factory.selectFrom(member)
+                .where(member.username.notIn(Collections.<String>emptyList()), member.username.startsWith("memb"))))
+                .hasSize(3);
+        assertThat(templateCache.fetch(factory.selectFrom(member)
+                .where(member.username.in(Arrays.asList("memb1", "memb2")))))
+                .extracting("username").containsExactlyInAnyOrder("memb1", "memb2");
+    }
+
+    private List<Member> search(String usernameParam, Integer ageParam) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (!ObjectUtils.isEmpty(usernameParam)) {
+            builder.and(member.username.eq(usernameParam));
+        }
+        if (!ObjectUtils.isEmpty(ageParam)) {
+            builder.and(member.age.eq(ageParam));
+        }
+        return templateCache.fetch(factory
+                .selectFrom(member)
+                .where(builder));
+    }
+}
@@ -0,0 +1,69 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ReadOnlyQueryTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired SqlStatementCounter counter;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void init() {
+        em.persist(new Member("readonly1", 31));
+        em.persist(new Member("readonly2", 32));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void readOnlyEntitiesAreNotDirtyChecked() {
+        List<Member> members = ReadOnlyQuery.of(factory.selectFrom(member))
+                .where(member.username.startsWith("readonly"))
+                .fetch();
+
+        Session session = em.unwrap(Session.class);
+        assertThat(members).allSatisfy(m -> assertThat(session.isReadOnly(m)).isTrue());
+
+        members.forEach(m -> m.setAge(99));
+        assertThatStatements(counter, () -> em.flush()).hasNoWrites();
+
+        em.clear();
+        assertThat(factory.select(member.age).from(member).where(member.username.startsWith("readonly")).fetch())
+                .containsOnly(31, 32);
+    }
+
+    @Test
+    void readOnlyTransactionIsReadOnlyByDefault() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+        });
+    }
+}
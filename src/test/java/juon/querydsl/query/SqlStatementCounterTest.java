@@ -0,0 +1,72 @@
+package juon.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Map;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class SqlStatementCounterTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired SqlStatementCounter counter;
+
+    @BeforeEach
+    void init() {
+        for (int i = 1; i <= 3; i++) {
+            Team t = new Team("stmtTeam" + i);
+            em.persist(t);
+            em.persist(new Member("stmt" + i, 30 + i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void lazyTeamIsBatchFetched() {
+        assertThatStatements(counter, () -> factory
+                .selectFrom(member)
+                .where(member.username.startsWith("stmt"))
+                .fetch()
+                .forEach(m -> m.getTeam().getName()))
+                // default_batch_fetch_size : team 프록시 3개를 in (...) 한 번으로 초기화
+                .hasSelects(1 + 1)
+                .hasNoWrites();
+    }
+
+    @Test
+    void fetchJoinIsOneStatement() {
+        assertThatStatements(counter, () -> factory
+                .selectFrom(member)
+                .join(member.team(), team).fetchJoin()
+                .where(member.username.startsWith("stmt"))
+                .fetch()
+                .forEach(m -> m.getTeam().getName()))
+                .hasAtMostStatements(1);
+    }
+
+    @Test
+    void tracksRepeatedShapes() {
+        counter.beginTracking();
+        for (int i = 1; i <= 3; i++) {
+            factory.selectFrom(member).where(member.username.eq("stmt" + i)).fetch();
+        }
+        Map<String, Integer> shapes = counter.endTracking();
+
+        assertThat(shapes.values()).contains(3);
+    }
+}
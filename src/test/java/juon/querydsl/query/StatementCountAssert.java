@@ -0,0 +1,43 @@
+package juon.querydsl.query;
+
+import org.assertj.core.api.AbstractAssert;
+
+/**
+ * assertThatStatements(counter, () -> 검색()).hasAtMostStatements(2);
+ *
+ * SqlStatementCounter 의 문장 수라서 JDBC batch 로 묶인 insert/update/delete 는 1개로 센다.
+ */
+public class StatementCountAssert extends AbstractAssert<StatementCountAssert, StatementCounts> {
+
+    private StatementCountAssert(StatementCounts actual) {
+        super(actual, StatementCountAssert.class);
+    }
+
+    public static StatementCountAssert assertThatStatements(SqlStatementCounter counter, Runnable work) {
+        return new StatementCountAssert(counter.count(work));
+    }
+
+    public StatementCountAssert hasAtMostStatements(long max) {
+        isNotNull();
+        if (actual.total() > max) {
+            failWithMessage("SQL 은 최대 %d개여야 하는데 %d개 실행되었습니다. (%s)", max, actual.total(), actual);
+        }
+        return this;
+    }
+
+    public StatementCountAssert hasSelects(long expected) {
+        isNotNull();
+        if (actual.getSelects() != expected) {
+            failWithMessage("select 는 %d개여야 하는데 %d개 실행되었습니다. (%s)", expected, actual.getSelects(), actual);
+        }
+        return this;
+    }
+
+    public StatementCountAssert hasNoWrites() {
+        isNotNull();
+        if (actual.getInserts() + actual.getUpdates() + actual.getDeletes() > 0) {
+            failWithMessage("insert/update/delete 가 없어야 하는데 실행되었습니다. (%s)", actual);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,87 @@
+package juon.querydsl.routing;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.Set;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * replica 는 내장 H2 in-memory DB 두 개로 대신한다.
+ */
+@SpringBootTest(properties = {
+        "datasource.routing.enabled=true",
+        "datasource.routing.replica-urls=jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1",
+        "datasource.routing.health-check-interval=1h"
+})
+class ReplicaRoutingTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired ReplicaRouting routing;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void init() {
+        for (Replica replica : routing.getReplicas()) {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+            jdbc.execute("create table if not exists member (member_id bigint primary key, username varchar(255))");
+            jdbc.execute("merge into member key (member_id) values (1, 'on-" + replica.getName() + "')");
+        }
+    }
+
+    @AfterEach
+    void restore() {
+        routing.checkHealth();
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        assertThat(database(false)).isNotIn("REPLICA1", "REPLICA2");
+    }
+
+    @Test
+    void readOnlyTransactionsRoundRobinReplicas() {
+        Set<String> databases = new HashSet<>();
+        databases.add(database(true));
+        databases.add(database(true));
+
+        assertThat(databases).containsExactlyInAnyOrder("REPLICA1", "REPLICA2");
+    }
+
+    @Test
+    void unhealthyReplicasFallBackToPrimary() {
+        routing.getReplicas().forEach(Replica::down);
+
+        assertThat(database(true)).isNotIn("REPLICA1", "REPLICA2");
+    }
+
+    @Test
+    void replicaHintOnQuerydsl() {
+        String username = factory
+                .select(member.username)
+                .from(member)
+                .where(member.id.eq(1L))
+                .setHint(ReplicaReads.HINT, true)
+                .fetchOne();
+
+        assertThat(username).startsWith("on-replica");
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> String.valueOf(em.createNativeQuery("select database()").getSingleResult()));
+    }
+}
@@ -0,0 +1,59 @@
+package juon.querydsl.slowlog;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static juon.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"query.slow-log.threshold=1h", "query.slow-log.sample-rate=1"})
+@Transactional
+class SlowQueryLogTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired SlowQueryLog slowQueryLog;
+
+    @AfterEach
+    void restoreSink() {
+        slowQueryLog.setSink(entry -> { });
+    }
+
+    @Test
+    void sampledQueryHasBindsAndRows() throws InterruptedException {
+        List<SlowQueryEntry> entries = new CopyOnWriteArrayList<>();
+        slowQueryLog.setSink(entries::add);
+        em.persist(new Member("slowlog1", 31));
+        em.persist(new Member("slowlog2", 32));
+        em.flush();
+
+        factory
+                .selectFrom(member)
+                .where(member.username.startsWith("slowlog"), member.age.goe(30))
+                .fetch();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (entries.stream().noneMatch(this::isMemberSelect) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        SlowQueryEntry select = entries.stream().filter(this::isMemberSelect).findFirst().orElseThrow(IllegalStateException::new);
+        assertThat(select.getReason()).isEqualTo(SlowQueryEntry.Reason.SAMPLED);
+        assertThat(select.getRows()).isEqualTo(2);
+        assertThat(select.getBinds()).contains("slowlog%", 30);
+    }
+
+    private boolean isMemberSelect(SlowQueryEntry entry) {
+        return entry.getSql().startsWith("select") && entry.getSql().contains("member");
+    }
+}
@@ -0,0 +1,203 @@
+package juon.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import juon.querydsl.entity.Member;
+import juon.querydsl.entity.Team;
+import juon.querydsl.query.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static juon.querydsl.entity.QMember.member;
+import static juon.querydsl.entity.QTeam.team;
+import static juon.querydsl.query.StatementCountAssert.assertThatStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TeamStatsReadModelTest {
+    @PersistenceContext EntityManager em;
+    @Autowired JPAQueryFactory factory;
+    @Autowired TransactionTemplate tx;
+    @Autowired TeamStatsReadModel teamStats;
+    @Autowired SqlStatementCounter counter;
+
+    Long teamA;
+    Long teamB;
+
+    @BeforeEach
+    void init() {
+        tx.executeWithoutResult(status -> {
+            Team a = new Team("statsTeamA");
+            Team b = new Team("statsTeamB");
+            em.persist(a);
+            em.persist(b);
+            em.persist(new Member("stats1", 10, a));
+            em.persist(new Member("stats2", 20, a));
+            em.persist(new Member("stats3", 30, b));
+            teamA = a.getId();
+            teamB = b.getId();
+        });
+        teamStats.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            factory.delete(member).where(member.username.startsWith("stats")).execute();
+            factory.delete(team).where(team.name.startsWith("statsTeam")).execute();
+        });
+    }
+
+    @Test
+    void lookupWithoutScan() {
+        assertThatStatements(counter, () -> teamStats.get(teamA)).hasSelects(0);
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 2, 30, 10, 20));
+        assertThat(teamStats.get(teamA).getAvgAge()).isEqualTo(15.0);
+        assertThat(teamStats.get(teamB)).isEqualTo(fromDatabase(teamB));
+    }
+
+    @Test
+    void followsEntityChanges() {
+        tx.executeWithoutResult(status -> em.persist(new Member("stats4", 5, em.find(Team.class, teamA))));
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 3, 35, 5, 20));
+
+        // 최소 나이 회원이 빠져도 나머지 나이로 최소값을 구한다
+        tx.executeWithoutResult(status -> findMember("stats4").changeTeam(em.find(Team.class, teamB)));
+        assertThat(teamStats.get(teamA)).isEqualTo(fromDatabase(teamA));
+        assertThat(teamStats.get(teamB)).isEqualTo(new TeamStats(teamB, 2, 35, 5, 30));
+
+        tx.executeWithoutResult(status -> findMember("stats2").setAge(25));
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 2, 35, 10, 25));
+
+        tx.executeWithoutResult(status -> em.remove(findMember("stats3")));
+        assertThat(teamStats.get(teamB)).isEqualTo(new TeamStats(teamB, 1, 5, 5, 5));
+        assertThat(teamStats.get(teamB)).isEqualTo(fromDatabase(teamB));
+    }
+
+    @Test
+    void ignoresRollback() {
+        tx.executeWithoutResult(status -> {
+            findMember("stats1").setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 2, 30, 10, 20));
+    }
+
+    @Test
+    void followsBulkClauses() {
+        tx.executeWithoutResult(status -> factory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.in("stats1", "stats3"))
+                .execute());
+        teamStats.awaitRefresh();
+
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 2, 31, 11, 20));
+        assertThat(teamStats.get(teamB)).isEqualTo(new TeamStats(teamB, 1, 31, 31, 31));
+
+        tx.executeWithoutResult(status -> factory
+                .delete(member)
+                .where(member.username.eq("stats3"))
+                .execute());
+        teamStats.awaitRefresh();
+
+        assertThat(teamStats.get(teamB)).isEqualTo(TeamStats.empty(teamB));
+    }
+
+    @Test
+    void reconcileRepairsDrift() {
+        // 엔티티 이벤트도 Querydsl 절도 거치지 않는 변경
+        tx.executeWithoutResult(status -> em
+                .createNativeQuery("update member set age = 50 where username = 'stats1'")
+                .executeUpdate());
+        assertThat(teamStats.get(teamA)).isNotEqualTo(fromDatabase(teamA));
+
+        assertThat(teamStats.reconcile()).isGreaterThanOrEqualTo(1);
+        assertThat(teamStats.get(teamA)).isEqualTo(new TeamStats(teamA, 2, 70, 20, 50));
+    }
+
+    @Test
+    void concurrentWritesDuringRebuild() throws Exception {
+        int writers = 4;
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < writers; i++) {
+                em.persist(new Member("statsWriter" + i, 40, em.find(Team.class, teamA)));
+            }
+        });
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                String username = "statsWriter" + i;
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < 50; n++) {
+                        int age = n;
+                        boolean toB = n % 3 == 0;
+                        tx.executeWithoutResult(status -> {
+                            Member writer = findMember(username);
+                            writer.setAge(age);
+                            if (toB) {
+                                writer.changeTeam(em.find(Team.class, writer.getTeam().getId().equals(teamA) ? teamB : teamA));
+                            }
+                        });
+                    }
+                }));
+            }
+            Future<?> rebuilding = executor.submit(() -> {
+                for (int n = 0; writing.get(); n++) {
+                    if (n % 2 == 0) {
+                        teamStats.reconcile();
+                    } else {
+                        teamStats.rebuild();
+                    }
+                }
+            });
+
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+            writing.set(false);
+            rebuilding.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        teamStats.awaitRefresh();
+
+        assertThat(teamStats.get(teamA)).isEqualTo(fromDatabase(teamA));
+        assertThat(teamStats.get(teamB)).isEqualTo(fromDatabase(teamB));
+        assertThat(teamStats.reconcile()).isZero();
+    }
+
+    private Member findMember(String username) {
+        return factory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private TeamStats fromDatabase(Long teamId) {
+        Tuple row = tx.execute(status -> factory
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team().id.eq(teamId))
+                .fetchOne());
+        long count = row.get(member.count());
+        return count == 0 ? TeamStats.empty(teamId) : new TeamStats(teamId, count,
+                row.get(member.age.sum()).longValue(), row.get(member.age.min()), row.get(member.age.max()));
+    }
+}